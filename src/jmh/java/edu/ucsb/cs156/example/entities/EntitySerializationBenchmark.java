@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// What the /all endpoints spend turning an entity list into JSON, using an
+// ObjectMapper configured the way Spring Boot configures the application's.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntitySerializationBenchmark {
+
+  @Param({ "10", "1000" })
+  int size;
+
+  private ObjectMapper mapper;
+  private List<HelpRequest> helpRequests;
+  private List<MenuItemReview> menuItemReviews;
+  private List<User> users;
+  private List<Articles> articles;
+  private List<UCSBDate> ucsbDates;
+  private List<RecommendationRequest> recommendationRequests;
+  private List<UCSBDiningCommons> diningCommons;
+  private List<UCSBDiningCommonsMenuItems> menuItems;
+  private List<UCSBOrganizations> organizations;
+
+  private static final LocalDateTime START = LocalDateTime.of(2022, 4, 1, 9, 0);
+
+  private <T> List<T> listOf(IntFunction<T> row) {
+    List<T> rows = new ArrayList<>(size);
+    for (int i = 1; i <= size; i++) {
+      rows.add(row.apply(i));
+    }
+    return rows;
+  }
+
+  @Setup
+  public void setup() {
+    mapper = Jackson2ObjectMapperBuilder.json().build();
+    helpRequests = listOf(i -> HelpRequest.builder().id(i).requesterEmail("student" + i + "@ucsb.edu")
+        .teamId("s22-5pm-" + (i % 8)).tableOrBreakoutRoom("table " + (i % 12)).requestTime(START.plusMinutes(i))
+        .explanation("Need help with the Swagger-ui for the create endpoint").solved(i % 3 == 0).build());
+    menuItemReviews = listOf(i -> MenuItemReview.builder().id(i).itemID(i % 50).reviewerEmail("student" + i + "@ucsb.edu")
+        .stars(1 + i % 5).dateReviewed(START.plusHours(i)).comments("Good, but a little too salty").build());
+    users = listOf(i -> User.builder().id(i).email("student" + i + "@ucsb.edu").googleSub(Long.toString(100000000L + i))
+        .pictureUrl("https://lh3.googleusercontent.com/a/photo" + i).fullName("Student " + i).givenName("Student")
+        .familyName(Integer.toString(i)).emailVerified(true).locale("en").hostedDomain("ucsb.edu").admin(i == 1).build());
+    articles = listOf(i -> Articles.builder().id(i).title("Article " + i).url("https://example.org/articles/" + i)
+        .explanation("Why keyset pagination beats offset pagination").email("author" + i + "@ucsb.edu")
+        .dateAdded(START.plusDays(i % 365)).build());
+    ucsbDates = listOf(i -> UCSBDate.builder().id(i).quarterYYYYQ("2022" + (1 + i % 4)).name("day " + i)
+        .localDateTime(START.plusDays(i % 365)).build());
+    recommendationRequests = listOf(i -> RecommendationRequest.builder().id(i).requesterEmail("student" + i + "@ucsb.edu")
+        .professorEmail("prof" + (i % 20) + "@ucsb.edu").explanation("Graduate school application")
+        .dateRequested(START.plusDays(i % 30)).dateNeeded(START.plusDays(30 + i % 30)).done(i % 2 == 0).build());
+    diningCommons = listOf(i -> UCSBDiningCommons.builder().code("commons" + i).name("Dining Commons " + i)
+        .hasSackMeal(i % 2 == 0).hasTakeOutMeal(true).hasDiningCam(i % 3 == 0)
+        .latitude(34.41 + i * 1e-4).longitude(-119.85 - i * 1e-4).build());
+    menuItems = listOf(i -> UCSBDiningCommonsMenuItems.builder().id(i).diningCommonsCode("commons" + (i % 4))
+        .name("Menu item " + i).station("Entrees").build());
+    organizations = listOf(i -> UCSBOrganizations.builder().orgCode("ORG" + i).orgTranslationShort("Org " + i)
+        .orgTranslation("Student Organization " + i).inactive(i % 10 == 0).build());
+  }
+
+  @Benchmark
+  public byte[] helpRequests() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(helpRequests);
+  }
+
+  @Benchmark
+  public byte[] menuItemReviews() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(menuItemReviews);
+  }
+
+  @Benchmark
+  public byte[] users() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(users);
+  }
+
+  @Benchmark
+  public byte[] articles() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(articles);
+  }
+
+  @Benchmark
+  public byte[] ucsbDates() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(ucsbDates);
+  }
+
+  @Benchmark
+  public byte[] recommendationRequests() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(recommendationRequests);
+  }
+
+  @Benchmark
+  public byte[] diningCommons() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(diningCommons);
+  }
+
+  @Benchmark
+  public byte[] menuItems() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(menuItems);
+  }
+
+  @Benchmark
+  public byte[] organizations() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(organizations);
+  }
+}
@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.logging;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Request-path cost of the access log: a request through AccessLogFilter
+// against the same request with no filter, from four threads at once. The
+// buffer is large enough that the drainer keeps up, so this measures entries
+// being recorded rather than dropped.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AccessLogBenchmark {
+
+  private AccessLogFilter filter;
+  private final FilterChain chain = (request, response) -> {};
+
+  @State(Scope.Thread)
+  public static class Exchange {
+    final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/HelpRequest/all");
+
+    @Setup
+    public void setup() {
+      request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/HelpRequest/all");
+    }
+  }
+
+  @Setup
+  public void setup() {
+    filter = new AccessLogFilter(new AccessLog(1 << 20, entry -> {}), 1.0);
+    filter.accessLog.start();
+  }
+
+  @TearDown
+  public void teardown() throws InterruptedException {
+    filter.accessLog.stop();
+    if (filter.accessLog.dropped() > 0) {
+      System.out.println("access log entries dropped: " + filter.accessLog.dropped());
+    }
+  }
+
+  @Benchmark
+  public MockHttpServletResponse withoutAccessLog(Exchange exchange) throws IOException, ServletException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    chain.doFilter(exchange.request, response);
+    return response;
+  }
+
+  @Benchmark
+  public MockHttpServletResponse withAccessLog(Exchange exchange) throws IOException, ServletException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(exchange.request, response, chain);
+    return response;
+  }
+}
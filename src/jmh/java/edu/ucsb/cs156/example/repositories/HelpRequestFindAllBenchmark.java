@@ -0,0 +1,105 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+
+// HelpRequestRepository.findAll, which /api/HelpRequest/all uses, against an
+// in-memory H2 database built by the Liquibase changelog, next to the first
+// keyset page that /api/HelpRequest/page reads instead. Only the JPA part of
+// the application is started.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class HelpRequestFindAllBenchmark {
+
+  static final int SEED_BATCH = 10_000;
+
+  @Param({ "1000", "100000", "1000000" })
+  int rows;
+
+  private ConfigurableApplicationContext context;
+  private HelpRequestRepository repository;
+
+  @SpringBootConfiguration
+  @EnableAutoConfiguration
+  @EntityScan(basePackageClasses = HelpRequest.class)
+  @EnableJpaRepositories(basePackageClasses = HelpRequestRepository.class)
+  static class JpaOnly {}
+
+  @Setup
+  public void setup() {
+    String url = "jdbc:h2:mem:helprequests" + rows + ";DB_CLOSE_DELAY=-1";
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    context = new SpringApplicationBuilder(JpaOnly.class)
+        .web(WebApplicationType.NONE)
+        .profiles("development")
+        .run("--spring.datasource.url=" + url, "--spring.liquibase.url=" + url,
+            "--spring.jpa.properties.hibernate.generate_statistics=false");
+    repository = context.getBean(HelpRequestRepository.class);
+    seed(context.getBean(JdbcTemplate.class));
+  }
+
+  private void seed(JdbcTemplate jdbc) {
+    String sql = "INSERT INTO HELPREQUESTS "
+        + "(ID, REQUESTER_EMAIL, TEAM_ID, TABLE_OR_BREAKOUT_ROOM, REQUEST_TIME, EXPLANATION, SOLVED) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    LocalDateTime start = LocalDateTime.of(2022, 4, 1, 9, 0);
+    for (int from = 1; from <= rows; from += SEED_BATCH) {
+      List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+      for (int id = from; id <= Math.min(rows, from + SEED_BATCH - 1); id++) {
+        batch.add(new Object[] { id, "student" + id + "@ucsb.edu", "s22-5pm-" + (id % 8), "table " + (id % 12),
+            Timestamp.valueOf(start.plusSeconds(id)), "Need help with the Swagger-ui", id % 3 == 0 });
+      }
+      jdbc.batchUpdate(sql, batch);
+    }
+  }
+
+  @TearDown
+  public void teardown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int findAll() {
+    int count = 0;
+    for (HelpRequest helpRequest : repository.findAll()) {
+      count++;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public List<HelpRequest> firstKeysetPage() {
+    return repository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 100));
+  }
+}
@@ -0,0 +1,101 @@
+package edu.ucsb.cs156.example.services;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+// getCurrentUser for a logged-in Google user, both for a session that has
+// already resolved its user and for the first call in a new session. The
+// repository answers from memory, so this is the service's own overhead and
+// not database time.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CurrentUserServiceBenchmark {
+
+  private CurrentUserServiceImpl service;
+
+  private final User stored = User.builder().id(1L).email("cgaucho@ucsb.edu").googleSub("115856948234298493496")
+      .fullName("Chris Gaucho").givenName("Chris").familyName("Gaucho").emailVerified(true)
+      .locale("en").hostedDomain("ucsb.edu").build();
+
+  @Setup
+  public void setup() {
+    UserRepository users = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+        new Class<?>[] { UserRepository.class }, (proxy, method, args) -> switch (method.getName()) {
+          case "findByEmail" -> Optional.of(stored);
+          case "findAdminByEmail" -> Optional.of(stored.getAdmin());
+          case "save" -> args[0];
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+    UserProvisioningService provisioning = new UserProvisioningService();
+    ReflectionTestUtils.setField(provisioning, "userRepository", users);
+
+    service = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(service, "userRepository", users);
+    ReflectionTestUtils.setField(service, "userProvisioning", provisioning);
+    ReflectionTestUtils.setField(service, "grantedAuthoritiesService", new GrantedAuthoritiesService());
+
+    List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_MEMBER");
+    Map<String, Object> attributes = Map.of(
+        "sub", stored.getGoogleSub(),
+        "email", stored.getEmail(),
+        "email_verified", true,
+        "name", stored.getFullName(),
+        "given_name", stored.getGivenName(),
+        "family_name", stored.getFamilyName(),
+        "picture", "https://lh3.googleusercontent.com/a/photo",
+        "locale", stored.getLocale(),
+        "hd", stored.getHostedDomain());
+    SecurityContextHolder.getContext().setAuthentication(new OAuth2AuthenticationToken(
+        new DefaultOAuth2User(authorities, attributes, "sub"), authorities, "google"));
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  @TearDown
+  public void teardown() {
+    RequestContextHolder.resetRequestAttributes();
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public CurrentUser sessionCached() {
+    return service.getCurrentUser();
+  }
+
+  @Benchmark
+  public CurrentUser firstCallInSession() {
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    return service.getCurrentUser();
+  }
+}
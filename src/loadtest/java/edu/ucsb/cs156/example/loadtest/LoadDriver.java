@@ -0,0 +1,422 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+
+// Open-model HTTP load driver. Requests are started on a schedule (Poisson or
+// evenly spaced arrivals at `rate` per second) whether or not earlier ones have
+// finished, and each latency is measured from the time the request was due to
+// start, so a stalled server shows up as long latencies rather than as a
+// driver that quietly slowed down with it.
+//
+// Each request picks an operation from `mix` and a controller from Resource.ALL.
+// Reads go out as random synthetic users, writes as random admins, each with a
+// LoadTestTokens bearer token and that user's session cookie. Ids for get, put
+// and delete come from rows the driver created itself.
+//
+// Without `url` the application is started in this JVM on a random port with
+// an in-memory database and the loadtest profile, under a random secret unless
+// `secret` is given; with it, the target must run the loadtest profile with the
+// same secret, users and admins, and `secret` is required.
+//
+// Arguments are name=value pairs; see DEFAULTS.
+
+public class LoadDriver {
+
+  enum Operation { list, get, post, put, delete }
+
+  static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+  static {
+    DEFAULTS.put("url", "");
+    DEFAULTS.put("rate", "100");
+    DEFAULTS.put("duration", "60");
+    DEFAULTS.put("warmup", "10");
+    DEFAULTS.put("arrivals", "poisson");
+    DEFAULTS.put("mix", "list:40,get:30,post:10,put:10,delete:10");
+    DEFAULTS.put("seed", "20");
+    DEFAULTS.put("maxInFlight", "2000");
+    DEFAULTS.put("secret", "");
+    DEFAULTS.put("users", "200");
+    DEFAULTS.put("admins", "20");
+    DEFAULTS.put("out", "target/loadtest");
+  }
+
+  static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+  static final class Stats {
+    final ConcurrentHistogram latency = new ConcurrentHistogram(MAX_MICROS, 3);
+    final LongAdder errors = new LongAdder();
+  }
+
+  // Keys of rows the driver created and has not deleted, for one resource
+  static final class KeyPool {
+    private final List<String> keys = new ArrayList<>();
+
+    synchronized void add(String key) {
+      keys.add(key);
+    }
+
+    synchronized String any() {
+      return keys.isEmpty() ? null : keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+    }
+
+    synchronized String take() {
+      if (keys.isEmpty()) {
+        return null;
+      }
+      int i = ThreadLocalRandom.current().nextInt(keys.size());
+      String key = keys.get(i);
+      keys.set(i, keys.get(keys.size() - 1));
+      keys.remove(keys.size() - 1);
+      return key;
+    }
+  }
+
+  private final Map<String, String> args;
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+  private final Map<Resource, KeyPool> keys = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAdder dropped = new LongAdder();
+  private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(10))
+      .executor(executor)
+      .build();
+
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+  private final LoadTestTokens tokens;
+  private final AtomicReferenceArray<String> sessions;
+  private String baseUrl;
+  private volatile long measureFrom;
+
+  LoadDriver(Map<String, String> args) {
+    this.args = args;
+    this.tokens = new LoadTestTokens(args.get("secret"), intArg("users"), intArg("admins"));
+    this.sessions = new AtomicReferenceArray<>(tokens.users());
+    List<Operation> ops = new ArrayList<>();
+    List<Integer> weights = new ArrayList<>();
+    int total = 0;
+    for (String part : args.get("mix").split(",")) {
+      String[] opAndWeight = part.trim().split(":");
+      total += Integer.parseInt(opAndWeight[1]);
+      ops.add(Operation.valueOf(opAndWeight[0]));
+      weights.add(total);
+    }
+    this.operations = ops.toArray(new Operation[0]);
+    this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    Resource.ALL.forEach(resource -> keys.put(resource, new KeyPool()));
+  }
+
+  public static void main(String[] argv) throws Exception {
+    Map<String, String> args = new LinkedHashMap<>(DEFAULTS);
+    for (String arg : argv) {
+      int eq = arg.indexOf('=');
+      if (eq < 0 || !DEFAULTS.containsKey(arg.substring(0, eq))) {
+        System.err.println("usage: LoadDriver [name=value ...], defaults " + DEFAULTS);
+        System.exit(2);
+      }
+      args.put(arg.substring(0, eq), arg.substring(eq + 1));
+    }
+    if (args.get("secret").isEmpty()) {
+      if (!args.get("url").isEmpty()) {
+        System.err.println("secret=... is required with url=..., and must match the server's app.loadtest.secret");
+        System.exit(2);
+      }
+      args.put("secret", randomSecret());
+    }
+
+    ConfigurableApplicationContext app = null;
+    LoadDriver driver = new LoadDriver(args);
+    try {
+      if (args.get("url").isEmpty()) {
+        app = startApplication(args);
+        driver.baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+      } else {
+        driver.baseUrl = args.get("url");
+      }
+      driver.run();
+    } finally {
+      driver.executor.shutdownNow();
+      if (app != null) {
+        app.close();
+      }
+    }
+    System.exit(0);
+  }
+
+  private static String randomSecret() {
+    byte[] bytes = new byte[32];
+    new SecureRandom().nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  static ConfigurableApplicationContext startApplication(Map<String, String> args) {
+    // devtools would restart the application in another classloader
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    String db = "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1";
+    return new SpringApplicationBuilder(ExampleApplication.class).run(
+        "--server.port=0",
+        "--spring.profiles.active=loadtest",
+        "--spring.datasource.url=" + db,
+        "--spring.datasource.username=sa",
+        "--spring.liquibase.url=" + db,
+        "--spring.liquibase.user=sa",
+        "--logging.level.root=WARN",
+        "--app.loadtest.secret=" + args.get("secret"),
+        "--app.loadtest.users=" + args.get("users"),
+        "--app.loadtest.admins=" + args.get("admins"));
+  }
+
+  void run() throws Exception {
+    int seed = intArg("seed");
+    for (Resource resource : Resource.ALL) {
+      for (int i = 0; i < seed; i++) {
+        HttpResponse<String> response = client.send(request(resource, Operation.post, 0), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+          throw new IllegalStateException("seeding %s failed with %d: %s".formatted(resource.name(), response.statusCode(), response.body()));
+        }
+        remember(resource, Operation.post, response);
+      }
+    }
+
+    double rate = Double.parseDouble(args.get("rate"));
+    boolean poisson = args.get("arrivals").equals("poisson");
+    int maxInFlight = intArg("maxInFlight");
+    long start = System.nanoTime();
+    measureFrom = start + TimeUnit.SECONDS.toNanos(intArg("warmup"));
+    long end = measureFrom + TimeUnit.SECONDS.toNanos(intArg("duration"));
+    double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+
+    System.out.printf("driving %s at %.0f requests/s (%s arrivals), %ss warmup + %ss measured%n",
+        baseUrl, rate, args.get("arrivals"), args.get("warmup"), args.get("duration"));
+    double due = start;
+    while ((long) due < end) {
+      long wait = (long) due - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+        continue;
+      }
+      if (inFlight.get() >= maxInFlight) {
+        dropped.increment();
+      } else {
+        fire((long) due);
+      }
+      due += poisson ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos : meanGapNanos;
+    }
+
+    long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+      Thread.sleep(10);
+    }
+    report(end - measureFrom);
+  }
+
+  private void fire(long due) throws IOException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Resource resource = Resource.ALL.get(random.nextInt(Resource.ALL.size()));
+    Operation operation = pickOperation(random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]));
+    String key = switch (operation) {
+      case get, put -> keys.get(resource).any();
+      case delete -> keys.get(resource).take();
+      default -> "";
+    };
+    if (key == null) {
+      // nothing left to read or change; list instead so the arrival still happens
+      operation = Operation.list;
+      key = "";
+    }
+    boolean write = operation == Operation.post || operation == Operation.put || operation == Operation.delete;
+    int user = random.nextInt(write ? tokens.admins() : tokens.users());
+    HttpRequest request = request(resource, operation, user, key);
+
+    Operation op = operation;
+    inFlight.incrementAndGet();
+    client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+      long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due);
+      inFlight.decrementAndGet();
+      boolean ok = error == null && response.statusCode() == 200;
+      if (error == null) {
+        rememberSession(user, response);
+        remember(resource, op, response);
+      }
+      if (due >= measureFrom) {
+        Stats s = stats.computeIfAbsent(resource.name() + " " + op, k -> new Stats());
+        s.latency.recordValue(Math.min(micros, MAX_MICROS));
+        if (!ok) {
+          s.errors.increment();
+        }
+      }
+    });
+  }
+
+  private Operation pickOperation(int roll) {
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (roll < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    return operations[operations.length - 1];
+  }
+
+  HttpRequest request(Resource resource, Operation operation, int user) throws IOException {
+    return request(resource, operation, user, "");
+  }
+
+  HttpRequest request(Resource resource, Operation operation, int user, String key) throws IOException {
+    String keyParam = resource.key() + "=" + encode(key);
+    HttpRequest.Builder builder = switch (operation) {
+      case list -> HttpRequest.newBuilder(uri(resource.path() + "/all")).GET();
+      case get -> HttpRequest.newBuilder(uri(resource.path() + "?" + keyParam)).GET();
+      case delete -> HttpRequest.newBuilder(uri(resource.path() + "?" + keyParam)).DELETE();
+      case post -> HttpRequest.newBuilder(uri(resource.path() + "/post?" + query(resource.fields().apply(sequence.incrementAndGet()))))
+          .POST(HttpRequest.BodyPublishers.noBody());
+      case put -> HttpRequest.newBuilder(uri(resource.path() + "?" + keyParam))
+          .header("Content-Type", "application/json")
+          .PUT(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(resource.fields().apply(sequence.incrementAndGet()))));
+    };
+    builder.timeout(Duration.ofMinutes(2)).header("Authorization", "Bearer " + tokens.token(user));
+    String session = sessions.get(user);
+    if (session != null) {
+      builder.header("Cookie", session);
+    }
+    return builder.build();
+  }
+
+  private void rememberSession(int user, HttpResponse<?> response) {
+    response.headers().allValues("Set-Cookie").stream()
+        .filter(cookie -> cookie.startsWith("JSESSIONID="))
+        .findFirst()
+        .ifPresent(cookie -> sessions.set(user, cookie.substring(0, cookie.indexOf(';') < 0 ? cookie.length() : cookie.indexOf(';'))));
+  }
+
+  private void remember(Resource resource, Operation operation, HttpResponse<String> response) {
+    if (operation == Operation.post && response.statusCode() == 200) {
+      try {
+        JsonNode row = mapper.readTree(response.body());
+        keys.get(resource).add(row.get(resource.key()).asText());
+      } catch (IOException e) {
+        System.err.println("unreadable response from " + resource.name() + " post: " + response.body());
+      }
+    }
+  }
+
+  private void report(long measuredNanos) throws IOException {
+    double seconds = measuredNanos / 1e9;
+    Path out = Path.of(args.get("out"));
+    Files.createDirectories(out);
+
+    Map<String, Histogram> byOperation = new TreeMap<>();
+    Map<String, Histogram> byResource = new TreeMap<>();
+    Map<String, Long> errorsByOperation = new TreeMap<>();
+    Map<String, Long> errorsByResource = new TreeMap<>();
+    Histogram overall = new Histogram(MAX_MICROS, 3);
+    long errors = 0;
+    for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+      String[] resourceAndOperation = entry.getKey().split(" ");
+      Stats s = entry.getValue();
+      long e = s.errors.sum();
+      byResource.computeIfAbsent(resourceAndOperation[0], k -> new Histogram(MAX_MICROS, 3)).add(s.latency);
+      byOperation.computeIfAbsent(resourceAndOperation[1], k -> new Histogram(MAX_MICROS, 3)).add(s.latency);
+      errorsByResource.merge(resourceAndOperation[0], e, Long::sum);
+      errorsByOperation.merge(resourceAndOperation[1], e, Long::sum);
+      overall.add(s.latency);
+      errors += e;
+    }
+
+    PrintStream console = System.out;
+    console.printf("%nlatency in ms, measured from when each request was due to start%n");
+    header(console, "operation");
+    byOperation.forEach((name, h) -> row(console, name, h, errorsByOperation.get(name), seconds));
+    row(console, "all", overall, errors, seconds);
+    console.println();
+    header(console, "resource");
+    byResource.forEach((name, h) -> row(console, name, h, errorsByResource.get(name), seconds));
+    console.printf("%ndropped (over maxInFlight): %d%n", dropped.sum());
+
+    for (Map.Entry<String, Histogram> entry : byOperation.entrySet()) {
+      write(out.resolve(entry.getKey() + ".hgrm"), entry.getValue());
+    }
+    write(out.resolve("all.hgrm"), overall);
+    console.printf("percentile distributions written to %s/*.hgrm%n", out);
+    console.printf("arguments: %s%n", args.entrySet().stream()
+        .map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.joining(" ")));
+  }
+
+  private static void header(PrintStream console, String first) {
+    console.printf("%-28s %9s %7s %9s %8s %8s %8s %8s %8s%n",
+        first, "count", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max");
+  }
+
+  private static void row(PrintStream console, String name, Histogram h, long errors, double seconds) {
+    console.printf("%-28s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+        name, h.getTotalCount(), errors, h.getTotalCount() / seconds,
+        h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+        h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+        h.getMaxValue() / 1000.0);
+  }
+
+  private static void write(Path file, Histogram histogram) throws IOException {
+    try (PrintStream stream = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+      histogram.outputPercentileDistribution(stream, 1000.0);
+    }
+  }
+
+  private URI uri(String pathAndQuery) {
+    return URI.create(baseUrl + pathAndQuery);
+  }
+
+  private static String query(Map<String, String> fields) {
+    return fields.entrySet().stream()
+        .map(e -> e.getKey() + "=" + encode(e.getValue()))
+        .collect(Collectors.joining("&"));
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private int intArg(String name) {
+    return Integer.parseInt(args.get(name));
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+// One CRUD controller as the load driver sees it: where it lives, which request
+// parameter names a row, and the fields of a new row. The same fields go in the
+// query string of /post and, as JSON, in the body of a PUT; Jackson reads the
+// string values into booleans, numbers and dates.
+
+record Resource(String name, String path, String key, LongFunction<Map<String, String>> fields) {
+
+  private static final String TIME = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString();
+
+  static final List<Resource> ALL = List.of(
+      new Resource("Articles", "/api/Articles", "id", n -> fields(
+          "title", "Load test article " + n,
+          "url", "https://example.org/articles/" + n,
+          "explanation", "Posted by the load driver",
+          "email", "loadtest@ucsb.edu",
+          "dateAdded", TIME)),
+      new Resource("HelpRequest", "/api/HelpRequest", "id", n -> fields(
+          "requesterEmail", "loadtest@ucsb.edu",
+          "teamId", "lt-" + (n % 20),
+          "tableOrBreakoutRoom", Long.toString(n % 12),
+          "requestTime", TIME,
+          "explanation", "Load test help request " + n,
+          "solved", Boolean.toString(n % 3 == 0))),
+      new Resource("MenuItemReview", "/api/MenuItemReview", "id", n -> fields(
+          "itemID", Long.toString(1 + n % 50),
+          "reviewerEmail", "loadtest@ucsb.edu",
+          "stars", Long.toString(1 + n % 5),
+          "dateReviewed", TIME,
+          "comments", "Load test review " + n)),
+      new Resource("RecommendationRequest", "/api/RecommendationRequest", "id", n -> fields(
+          "requesterEmail", "loadtest@ucsb.edu",
+          "professorEmail", "professor@ucsb.edu",
+          "explanation", "Load test recommendation " + n,
+          "dateRequested", TIME,
+          "dateNeeded", TIME,
+          "done", Boolean.toString(n % 2 == 0))),
+      new Resource("UCSBDates", "/api/ucsbdates", "id", n -> fields(
+          "quarterYYYYQ", "2022" + (1 + n % 4),
+          "name", "Load test date " + n,
+          "localDateTime", TIME)),
+      new Resource("UCSBDiningCommons", "/api/ucsbdiningcommons", "code", n -> fields(
+          "code", "lt" + n,
+          "name", "Load Test Commons " + n,
+          "hasSackMeal", "true",
+          "hasTakeOutMeal", "false",
+          "hasDiningCam", "true",
+          "latitude", Double.toString(34.40 + (n % 100) / 10000.0),
+          "longitude", Double.toString(-119.84 + (n % 100) / 10000.0))),
+      new Resource("UCSBDiningCommonsMenuItem", "/api/UCSBDiningCommonsMenuItem", "id", n -> fields(
+          "diningCommonsCode", "lt" + (n % 10),
+          "name", "Load test dish " + n,
+          "station", "Station " + (n % 5))),
+      new Resource("UCSBOrganization", "/api/UCSBOrganization", "orgCode", n -> fields(
+          "orgCode", "LT" + n,
+          "orgTranslationShort", "LOAD TEST " + n,
+          "orgTranslation", "Load Test Organization " + n,
+          "inactive", "false")));
+
+  private static Map<String, String> fields(String... namesAndValues) {
+    Map<String, String> fields = new LinkedHashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      fields.put(namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return fields;
+  }
+}
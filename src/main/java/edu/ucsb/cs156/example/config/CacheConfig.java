@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Turns on @Cacheable/@CacheEvict; the caches themselves are configured
+// through the spring.cache.* properties, apart from the admin flag cache,
+// which needs room for a whole class logging in at once and a shorter expiry
+// so that admin changes made directly in the database are picked up.
+@Configuration
+@EnableCaching
+class CacheConfig {
+
+  static final int ADMIN_CACHE_SIZE = 5000;
+  static final Duration ADMIN_CACHE_TTL = Duration.ofMinutes(10);
+
+  @Bean
+  CacheManagerCustomizer<CaffeineCacheManager> adminCacheCustomizer() {
+    return cacheManager -> cacheManager.registerCustomCache(UserRepository.ADMIN_CACHE,
+        Caffeine.newBuilder()
+            .maximumSize(ADMIN_CACHE_SIZE)
+            .expireAfterWrite(ADMIN_CACHE_TTL)
+            .recordStats()
+            .build());
+  }
+}
@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.loadtest.LoadTestAuthenticationFilter;
+import edu.ucsb.cs156.example.loadtest.LoadTestTokens;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// Token logins for synthetic users, for the load driver under src/loadtest.
+// Never active alongside production, whatever profiles are set.
+@Configuration
+@Profile("loadtest & !production")
+class LoadTestConfig {
+
+  @Bean
+  LoadTestTokens loadTestTokens(
+      @Value("${app.loadtest.secret}") String secret,
+      @Value("${app.loadtest.users}") int users,
+      @Value("${app.loadtest.admins}") int admins) {
+    return new LoadTestTokens(secret, users, admins);
+  }
+
+  @Bean
+  LoadTestAuthenticationFilter loadTestAuthenticationFilter(LoadTestTokens loadTestTokens) {
+    return new LoadTestAuthenticationFilter(loadTestTokens);
+  }
+
+  // SecurityConfig puts the filter in the security chain; keep Boot from also
+  // registering it with the servlet container, where it would run too late.
+  @Bean
+  FilterRegistrationBean<LoadTestAuthenticationFilter> loadTestAuthenticationFilterRegistration(
+      LoadTestAuthenticationFilter loadTestAuthenticationFilter) {
+    FilterRegistrationBean<LoadTestAuthenticationFilter> registration = new FilterRegistrationBean<>(loadTestAuthenticationFilter);
+    registration.setEnabled(false);
+    return registration;
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// Adds controller and role tags to the http.server.requests timers, alongside
+// the method, uri (route template) and status tags Spring Boot already sets.
+// The timer is recorded after the Spring Security filter chain has cleared the
+// security context, so the role is worked out while the handler runs and kept
+// on the request.
+@Configuration
+class MetricsConfig implements WebMvcConfigurer {
+
+  static final String ROLE_ATTRIBUTE = MetricsConfig.class.getName() + ".ROLE";
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new HandlerInterceptor() {
+      @Override
+      public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ROLE_ATTRIBUTE, role(SecurityContextHolder.getContext().getAuthentication()));
+        return true;
+      }
+    });
+  }
+
+  @Bean
+  WebMvcTagsContributor controllerAndRoleTags() {
+    return new WebMvcTagsContributor() {
+      @Override
+      public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+          Throwable exception) {
+        return tags(request, handler);
+      }
+
+      @Override
+      public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return tags(request, handler);
+      }
+    };
+  }
+
+  private static Tags tags(HttpServletRequest request, Object handler) {
+    String controller = (handler instanceof HandlerMethod method) ? method.getBeanType().getSimpleName() : "none";
+    Object role = request.getAttribute(ROLE_ATTRIBUTE);
+    return Tags.of("controller", controller, "role", (role != null) ? role.toString() : "anonymous");
+  }
+
+  private static String role(Authentication authentication) {
+    if (authentication == null) {
+      return "anonymous";
+    }
+    boolean user = false;
+    for (GrantedAuthority authority : authentication.getAuthorities()) {
+      if ("ROLE_ADMIN".equals(authority.getAuthority())) {
+        return "admin";
+      }
+      user |= "ROLE_USER".equals(authority.getAuthority());
+    }
+    return user ? "user" : "anonymous";
+  }
+}
@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.logging.QueryCountingDataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+// In development, route the application's DataSource through
+// QueryCountingDataSource so QueryCountFilter can report per-request JDBC work.
+// Only the one Spring Boot defines is wrapped; the wrapper still unwraps to
+// the HikariDataSource underneath, so the pool metrics are bound as usual.
+@Configuration
+@Profile("development")
+class QueryCountConfig {
+
+  static final String DATA_SOURCE_BEAN = "dataSource";
+
+  @Bean
+  static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource) {
+          return QueryCountingDataSource.wrap(dataSource);
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -4,11 +4,8 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -26,6 +23,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
@@ -33,7 +31,7 @@ import org.springframework.security.web.util.matcher.RequestMatcher;
 
 
 
-import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.loadtest.LoadTestAuthenticationFilter;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 
@@ -44,14 +42,28 @@ import lombok.extern.slf4j.Slf4j;
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
   @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<String>();
+  private final Set<String> adminEmails = new HashSet<String>();
 
   @Autowired
   UserRepository userRepository;
 
+  // Only present with the loadtest profile (see LoadTestConfig)
+  @Autowired(required = false)
+  LoadTestAuthenticationFilter loadTestAuthenticationFilter;
+
   @Override
   protected void configure(HttpSecurity http) throws Exception {
+    if (loadTestAuthenticationFilter != null) {
+      // Browsers never attach a bearer token on their own, so those requests
+      // cannot be forged cross-site and need no CSRF token.
+      http.addFilterBefore(loadTestAuthenticationFilter, AnonymousAuthenticationFilter.class)
+          .csrf(csrf -> csrf.ignoringRequestMatchers(LoadTestAuthenticationFilter::hasBearerToken));
+    }
+    // The actuator endpoints (see management.endpoints.web.exposure.include)
+    // show request rates, latencies, routes and pool sizes, so only admins may
+    // read them; everything else is guarded per handler with @PreAuthorize.
     http.authorizeRequests(authorize -> authorize
+        .antMatchers("/actuator/**").hasRole("ADMIN")
         .anyRequest().permitAll())
         .exceptionHandling(handlingConfigurer -> handlingConfigurer
             .authenticationEntryPoint(new Http403ForbiddenEntryPoint()))
@@ -72,16 +84,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
   private GrantedAuthoritiesMapper userAuthoritiesMapper() {
     return (authorities) -> {
       Set<GrantedAuthority> mappedAuthorities = new HashSet<>();
-      log.info("********** authorities={}", authorities);
-
       authorities.forEach(authority -> {
-        log.info("********** authority={}", authority);
         mappedAuthorities.add(authority);
         if (OAuth2UserAuthority.class.isInstance(authority)) {
           OAuth2UserAuthority oauth2UserAuthority = (OAuth2UserAuthority) authority;
 
           Map<String, Object> userAttributes = oauth2UserAuthority.getAttributes();
-          log.info("********** userAttributes={}", userAttributes);
 
           String email = (String) userAttributes.get("email");
           if (getAdmin(email)) {
@@ -94,16 +102,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         }
 
       });
-      log.info("********** mappedAuthorities={}", mappedAuthorities);
+      log.debug("mappedAuthorities={}", mappedAuthorities);
       return mappedAuthorities;
     };
   }
 
   public boolean getAdmin(String email) {
-    if (adminEmails.contains(email)) {
-      return true;
-    }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
+    return adminEmails.contains(email) || userRepository.findAdminByEmail(email).orElse(false);
   }
 }
\ No newline at end of file
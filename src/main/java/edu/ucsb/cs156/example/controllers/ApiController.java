@@ -1,6 +1,8 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import edu.ucsb.cs156.example.models.CurrentUser;
@@ -10,10 +12,23 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 public abstract class ApiController {
+  // /all predates /page and the frontend tables still use it, so it keeps its
+  // shape. By default it returns the first ALL_LIMIT rows in key order; when
+  // there are more it sets TRUNCATED_HEADER, and NEXT_CURSOR_HEADER to the
+  // cursor that /page?after= continues from. /all?unbounded=true opts back in
+  // to reading the whole table in one response.
+  public static final int ALL_LIMIT = 10000;
+  public static final String TRUNCATED_HEADER = "X-Truncated";
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
   @Autowired
   private CurrentUserService currentUserService;
 
@@ -21,6 +36,16 @@ public abstract class ApiController {
     return currentUserService.getCurrentUser();
   }
 
+  // rows should be fetched with ALL_LIMIT + 1 so that truncation can be detected
+  protected <T> List<T> firstRowsOnly(List<T> rows, Function<T, String> key, HttpServletResponse response) {
+    KeysetPage<T> page = KeysetPage.of(rows, ALL_LIMIT, key);
+    if (page.getNextCursor() != null) {
+      response.setHeader(TRUNCATED_HEADER, "true");
+      response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+    }
+    return page.getContent();
+  }
+
   protected Object genericMessage(String message) {
     return Map.of("message", message);
   }
@@ -33,4 +58,13 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  @ExceptionHandler({ InvalidCursorException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequestException(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
 }
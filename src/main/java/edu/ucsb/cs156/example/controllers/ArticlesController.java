@@ -2,7 +2,10 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ArticleSearchService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -23,9 +27,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Tag(name = "Articles")
 @RequestMapping("/api/Articles")
@@ -36,12 +42,41 @@ public class ArticlesController extends ApiController {
     @Autowired
     ArticlesRepository articlesRepository;
 
+    @Autowired
+    ArticleSearchService articleSearch;
+
     @Operation(summary= "List all articles")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Articles> allArticles() {
-        Iterable<Articles> articles = articlesRepository.findAll();
-        return articles;
+    public Iterable<Articles> allArticles(
+            @Parameter(name="unbounded", description="true to read every row in one response; otherwise at most ApiController.ALL_LIMIT rows, with X-Next-Cursor set when there are more") @RequestParam(defaultValue = "false") boolean unbounded,
+            HttpServletResponse response) {
+        if (unbounded) {
+            return articlesRepository.findAll();
+        }
+        List<Articles> articles = articlesRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, ALL_LIMIT + 1));
+        return firstRowsOnly(articles, row -> Long.toString(row.getId()), response);
+    }
+
+    @Operation(summary= "List articles one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<Articles> pageArticles(
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        long afterId = (after == null) ? 0L : KeysetPage.decodeLongCursor(after);
+        List<Articles> rows = articlesRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> Long.toString(row.getId()));
+    }
+
+    @Operation(summary= "Search article titles and explanations, best matches first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public List<ArticleSearchHit> searchArticles(
+            @Parameter(name="q", description="words to look for; case is ignored") @RequestParam String q,
+            @Parameter(name="limit") @RequestParam(defaultValue = "20") int limit) {
+        return articleSearch.search(q, KeysetPage.clampLimit(limit));
     }
 
     @Operation(summary= "Create a new article")
@@ -68,6 +103,7 @@ public class ArticlesController extends ApiController {
         articles.setDateAdded(dateAdded);
 
         Articles savedArticles = articlesRepository.save(articles);
+        articleSearch.index(savedArticles);
 
         return savedArticles;
     }
@@ -88,13 +124,24 @@ public class ArticlesController extends ApiController {
     @DeleteMapping("")
     public Object deleteArticle(
             @Parameter(name="id") @RequestParam Long id) {
-        Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
+        if (articlesRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(Articles.class, id);
+        }
+        articleSearch.deleted(List.of(id));
 
-        articlesRepository.delete(articles);
         return genericMessage("Articles with id %s deleted".formatted(id));
     }
 
+    @Operation(summary= "Delete several Articles in one statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "", params = "ids")
+    public Object deleteArticleBulk(
+            @Parameter(name="ids") @RequestParam List<Long> ids) {
+        int deleted = ids.isEmpty() ? 0 : articlesRepository.deleteAllByIdIn(ids);
+        articleSearch.deleted(ids);
+        return genericMessage("%d of %d Articles deleted".formatted(deleted, ids.size()));
+    }
+
     @Operation(summary= "Update a single article")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
@@ -102,18 +149,13 @@ public class ArticlesController extends ApiController {
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid Articles incoming) {
 
-        Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
-
-        articles.setTitle(incoming.getTitle());
-        articles.setUrl(incoming.getUrl());
-        articles.setExplanation(incoming.getExplanation());
-        articles.setEmail(incoming.getEmail());
-        articles.setDateAdded(incoming.getDateAdded());
+        incoming.setId(id);
+        if (articlesRepository.update(id, incoming) == 0) {
+            throw new EntityNotFoundException(Articles.class, id);
+        }
+        articleSearch.index(incoming);
 
-        articlesRepository.save(articles);
-
-        return articles;
+        return incoming;
     }
     
 }
@@ -2,18 +2,27 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import edu.ucsb.cs156.example.models.HelpRequestQueue;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.HelpRequestEventService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -22,10 +31,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Tag(name = "HelpRequests")
 @RequestMapping("/api/HelpRequest")
@@ -33,15 +49,81 @@ import java.time.LocalDateTime;
 @Slf4j
 public class HelpRequestController extends ApiController {
 
+    static final int CLAIM_CANDIDATES = 10;
+
     @Autowired
     HelpRequestRepository helpRequestRepository;
 
+    @Autowired
+    ObjectMapper mapper;
+
+    @Autowired
+    HelpRequestEventService helpRequestEvents;
+
     @Operation(summary= "List all help requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<HelpRequest> allHelpRequests() {
-        Iterable<HelpRequest> requests = helpRequestRepository.findAll();
-        return requests;
+    public Iterable<HelpRequest> allHelpRequests(
+            @Parameter(name="unbounded", description="true to read every row in one response; otherwise at most ApiController.ALL_LIMIT rows, with X-Next-Cursor set when there are more") @RequestParam(defaultValue = "false") boolean unbounded,
+            HttpServletResponse response) {
+        if (unbounded) {
+            return helpRequestRepository.findAll();
+        }
+        List<HelpRequest> requests = helpRequestRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, ALL_LIMIT + 1));
+        return firstRowsOnly(requests, row -> Long.toString(row.getId()), response);
+    }
+
+    @Operation(summary= "List help requests one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<HelpRequest> pageHelpRequests(
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        long afterId = (after == null) ? 0L : KeysetPage.decodeLongCursor(after);
+        List<HelpRequest> rows = helpRequestRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> Long.toString(row.getId()));
+    }
+
+    @Operation(summary= "List unsolved help requests, oldest first, with the queue length and longest wait")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/queue")
+    public HelpRequestQueue helpRequestQueue(
+            @Parameter(name="limit", description="how many requests from the front of the queue to return") @RequestParam(defaultValue = "100") int limit) {
+        List<HelpRequest> requests = helpRequestRepository.findBySolvedFalseOrderByRequestTimeAscIdAsc(PageRequest.of(0, KeysetPage.clampLimit(limit)));
+        LocalDateTime oldest = helpRequestRepository.findOldestOpenRequestTime();
+        Long oldestWaitSeconds = (oldest == null) ? null : Duration.between(oldest, LocalDateTime.now()).toSeconds();
+        return new HelpRequestQueue(helpRequestRepository.countBySolvedFalse(), oldestWaitSeconds, requests);
+    }
+
+    // Writes rows to the response as the database cursor produces them, detaching
+    // each one once written, so memory use does not grow with the table.
+    // The transaction keeps the cursor open until the last row has been written.
+    @Operation(summary= "Stream all help requests as a JSON array")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Transactional(readOnly = true)
+    public void streamHelpRequests(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (Stream<HelpRequest> requests = helpRequestRepository.streamAllByOrderByIdAsc();
+                JsonGenerator generator = mapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            Iterator<HelpRequest> iterator = requests.iterator();
+            while (iterator.hasNext()) {
+                HelpRequest helpRequest = iterator.next();
+                generator.writeObject(helpRequest);
+                helpRequestRepository.detach(helpRequest);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Operation(summary= "Subscribe to help request changes as server-sent events",
+            description= "Events are named created, updated or deleted. Created and updated carry the help request; deleted carries the list of ids. The stream is closed if the client falls behind, and the client should then reload.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter helpRequestEvents() {
+        return helpRequestEvents.subscribe();
     }
 
     @Operation(summary= "Create a help request")
@@ -71,10 +153,47 @@ public class HelpRequestController extends ApiController {
         helpRequest.setSolved(solved);
 
         HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
+        helpRequestEvents.publish(HelpRequestEvent.CREATED, savedHelpRequest);
 
         return savedHelpRequest;
     }
     
+    // Ids come from a pooled sequence and hibernate.jdbc.batch_size is set, so
+    // saveAll sends the whole list as a few batched inserts in one transaction.
+    @Operation(summary= "Create many help requests at once")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public Iterable<HelpRequest> postHelpRequests(
+            @RequestBody @Valid List<HelpRequest> incoming) {
+        incoming.forEach(helpRequest -> helpRequest.setId(0));
+        Iterable<HelpRequest> saved = helpRequestRepository.saveAll(incoming);
+        saved.forEach(helpRequest -> helpRequestEvents.publish(HelpRequestEvent.CREATED, helpRequest));
+        return saved;
+    }
+
+    // Reads a few of the oldest unclaimed requests without locking them and tries
+    // a conditional update on each in turn. An update that matches no row means
+    // another TA got there first, so move on rather than wait on their row lock.
+    @Operation(summary= "Claim the oldest unsolved, unclaimed help request for the current user")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/claim")
+    public Object claimHelpRequest() {
+        String email = getCurrentUser().getUser().getEmail();
+        List<HelpRequest> candidates;
+        while (!(candidates = helpRequestRepository.findBySolvedFalseAndClaimedByIsNullOrderByRequestTimeAscIdAsc(PageRequest.of(0, CLAIM_CANDIDATES))).isEmpty()) {
+            for (HelpRequest candidate : candidates) {
+                LocalDateTime claimedAt = LocalDateTime.now();
+                if (helpRequestRepository.claim(candidate.getId(), email, claimedAt) == 1) {
+                    candidate.setClaimedBy(email);
+                    candidate.setClaimedAt(claimedAt);
+                    helpRequestEvents.publish(HelpRequestEvent.UPDATED, candidate);
+                    return candidate;
+                }
+            }
+        }
+        return genericMessage("No unclaimed HelpRequests");
+    }
+
     @Operation(summary= "Get a single request")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -91,13 +210,31 @@ public class HelpRequestController extends ApiController {
     @DeleteMapping("")
     public Object deleteHelpRequest(
             @Parameter(name="id") @RequestParam Long id) {
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+        if (helpRequestRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(HelpRequest.class, id);
+        }
+        helpRequestEvents.publish(HelpRequestEvent.DELETED, List.of(id));
 
-        helpRequestRepository.delete(helpRequest);
         return genericMessage("HelpRequest with id %s deleted".formatted(id));
     }
 
+    @Operation(summary= "Delete several HelpRequests in one statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "", params = "ids")
+    public Object deleteHelpRequestBulk(
+            @Parameter(name="ids") @RequestParam List<Long> ids) {
+        // Subscribers are only told about rows that existed. Ids come from a
+        // sequence, so no row can appear under one of them between the two
+        // statements; if a concurrent delete takes some first, those ids were
+        // still removed, and that caller reports them too.
+        List<Long> existing = ids.isEmpty() ? List.of() : helpRequestRepository.findIdsByIdIn(ids);
+        int deleted = existing.isEmpty() ? 0 : helpRequestRepository.deleteAllByIdIn(existing);
+        if (deleted > 0) {
+            helpRequestEvents.publish(HelpRequestEvent.DELETED, existing);
+        }
+        return genericMessage("%d of %d HelpRequests deleted".formatted(deleted, ids.size()));
+    }
+
     @Operation(summary= "Update a single request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
@@ -105,20 +242,17 @@ public class HelpRequestController extends ApiController {
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid HelpRequest incoming) {
 
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
+        incoming.setId(id);
+        if (helpRequestRepository.update(id, incoming) == 0) {
+            throw new EntityNotFoundException(HelpRequest.class, id);
+        }
+        // the update leaves claimedBy and claimedAt alone, since only /claim sets
+        // them, so answer with the stored row rather than echo the request body
+        HelpRequest updated = helpRequestRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+        helpRequestEvents.publish(HelpRequestEvent.UPDATED, updated);
 
-        
-        helpRequest.setRequesterEmail(incoming.getRequesterEmail());
-        helpRequest.setTeamId(incoming.getTeamId());
-        helpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
-        helpRequest.setRequestTime(incoming.getRequestTime());
-        helpRequest.setExplanation(incoming.getExplanation());
-        helpRequest.setSolved(incoming.getSolved());
-
-        helpRequestRepository.save(helpRequest);
-
-        return helpRequest;
+        return updated;
     }
 
     
@@ -1,19 +1,27 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.MenuItemRating;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -23,9 +31,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Tag(name = "MenuItemReview")
 @RequestMapping("/api/MenuItemReview")
@@ -33,20 +48,90 @@ import java.time.LocalDateTime;
 @Slf4j
 public class MenuItemReviewController extends ApiController {
 
+    static final String NDJSON_VALUE = "application/x-ndjson";
+    static final LocalDateTime EXPORT_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    static final LocalDateTime EXPORT_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     @Autowired
     MenuItemReviewRepository menuItemReviewRepository;
 
+    @Autowired
+    MenuItemRatingService menuItemRatings;
+
+    @Autowired
+    ObjectMapper mapper;
+
     @Operation(summary= "List all menu item reviews")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<MenuItemReview> allMenuItemReviews() {
-        Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
-        return reviews;
+    public Iterable<MenuItemReview> allMenuItemReviews(
+            @Parameter(name="unbounded", description="true to read every row in one response; otherwise at most ApiController.ALL_LIMIT rows, with X-Next-Cursor set when there are more") @RequestParam(defaultValue = "false") boolean unbounded,
+            HttpServletResponse response) {
+        if (unbounded) {
+            return menuItemReviewRepository.findAll();
+        }
+        List<MenuItemReview> reviews = menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, ALL_LIMIT + 1));
+        return firstRowsOnly(reviews, row -> Long.toString(row.getId()), response);
+    }
+
+    @Operation(summary= "List menu item reviews one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<MenuItemReview> pageMenuItemReviews(
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        long afterId = (after == null) ? 0L : KeysetPage.decodeLongCursor(after);
+        List<MenuItemReview> rows = menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> Long.toString(row.getId()));
+    }
+
+    // One JSON object per line, in id order, read from a server-side cursor.
+    // An interrupted export can be resumed by passing the last id received as "after".
+    @Operation(summary= "Export menu item reviews as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    @Transactional(readOnly = true)
+    public void exportMenuItemReviews(
+            @Parameter(name="since", description="only reviews with dateReviewed at or after this time (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @Parameter(name="until", description="only reviews with dateReviewed before this time (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @Parameter(name="after", description="only reviews with id greater than this; use the last id received to resume") @RequestParam(defaultValue = "0") long after,
+            @Parameter(name="gzip") @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            out = new GZIPOutputStream(out);
+        }
+
+        try (Stream<MenuItemReview> reviews = menuItemReviewRepository.streamForExport(after,
+                    since == null ? EXPORT_START : since,
+                    until == null ? EXPORT_END : until);
+                JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            Iterator<MenuItemReview> iterator = reviews.iterator();
+            while (iterator.hasNext()) {
+                MenuItemReview review = iterator.next();
+                generator.writeObject(review);
+                generator.writeRaw('\n');
+                menuItemReviewRepository.detach(review);
+            }
+        }
+    }
+
+    @Operation(summary= "Review count, average and star histogram for one menu item")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/stats")
+    public MenuItemRating menuItemStats(
+            @Parameter(name="itemId") @RequestParam long itemId) {
+        return menuItemRatings.statsFor(itemId);
     }
 
     @Operation(summary= "Create a new menu item review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
+    @Transactional
     public MenuItemReview postMenuItemReview(
             @Parameter(name="itemID") @RequestParam long itemID,
             @Parameter(name="reviewerEmail") @RequestParam String reviewerEmail,
@@ -68,6 +153,7 @@ public class MenuItemReviewController extends ApiController {
         menuItemReview.setComments(comments);
 
         MenuItemReview savedMenuItemReview = menuItemReviewRepository.save(menuItemReview);
+        menuItemRatings.reviewAdded(savedMenuItemReview);
 
         return savedMenuItemReview;
     }
@@ -86,34 +172,50 @@ public class MenuItemReviewController extends ApiController {
     @Operation(summary= "Update a single review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
+    @Transactional
     public MenuItemReview updateMenuItemReview(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid MenuItemReview incoming) {
 
-        MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
+        // the old stars are needed to correct the rating rollup
+        MenuItemReview menuItemReview = menuItemReviewRepository.findForUpdateById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-        
-        menuItemReview.setItemID(incoming.getItemID());
-        menuItemReview.setReviewerEmail(incoming.getReviewerEmail());
-        menuItemReview.setStars(incoming.getStars());
-        menuItemReview.setDateReviewed(incoming.getDateReviewed());
-        menuItemReview.setComments(incoming.getComments());
 
-        menuItemReviewRepository.save(menuItemReview);
+        incoming.setId(id);
+        menuItemReviewRepository.update(id, incoming);
+        menuItemRatings.reviewChanged(menuItemReview, incoming);
 
-        return menuItemReview;
+        return incoming;
     }
 
     @Operation(summary= "Delete a MenuItemReview")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
+    @Transactional
     public Object deleteMenuItemReview(
             @Parameter(name="id") @RequestParam Long id) {
-        MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
+        MenuItemReview menuItemReview = menuItemReviewRepository.findForUpdateById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
-        menuItemReviewRepository.delete(menuItemReview);
+        menuItemReviewRepository.deleteByIdReturningCount(id);
+        menuItemRatings.reviewsRemoved(List.of(menuItemReview));
+
         return genericMessage("MenuItemReview with id %s deleted".formatted(id));
     }
 
+    @Operation(summary= "Delete several MenuItemReviews in one statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "", params = "ids")
+    @Transactional
+    public Object deleteMenuItemReviewBulk(
+            @Parameter(name="ids") @RequestParam List<Long> ids) {
+        if (ids.isEmpty()) {
+            return genericMessage("0 of 0 MenuItemReviews deleted");
+        }
+        List<MenuItemReview> doomed = menuItemReviewRepository.findForUpdateByIdIn(ids);
+        int deleted = menuItemReviewRepository.deleteAllByIdIn(ids);
+        menuItemRatings.reviewsRemoved(doomed);
+        return genericMessage("%d of %d MenuItemReviews deleted".formatted(deleted, ids.size()));
+    }
+
 }
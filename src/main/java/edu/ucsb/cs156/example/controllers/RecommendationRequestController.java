@@ -2,6 +2,8 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -22,24 +25,99 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 
 @Tag(name = "RecommendationRequest")
 @RequestMapping("/api/RecommendationRequest")
 @RestController
 @Slf4j
 public class RecommendationRequestController extends ApiController{
+  static final String DUE_CURSOR_SEPARATOR = "|";
+
   @Autowired
     RecommendationRequestRepository recommendationRequestRepository;
 
     @Operation(summary= "List all recomendation requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> allRecommendationRequests() {
-        Iterable<RecommendationRequest> requests = recommendationRequestRepository.findAll();
-        return requests;
+    public Iterable<RecommendationRequest> allRecommendationRequests(
+            @Parameter(name="unbounded", description="true to read every row in one response; otherwise at most ApiController.ALL_LIMIT rows, with X-Next-Cursor set when there are more") @RequestParam(defaultValue = "false") boolean unbounded,
+            HttpServletResponse response) {
+        if (unbounded) {
+            return recommendationRequestRepository.findAll();
+        }
+        List<RecommendationRequest> requests = recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, ALL_LIMIT + 1));
+        return firstRowsOnly(requests, row -> Long.toString(row.getId()), response);
+    }
+
+    @Operation(summary= "List recommendation requests one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<RecommendationRequest> pageRecommendationRequests(
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        long afterId = (after == null) ? 0L : KeysetPage.decodeLongCursor(after);
+        List<RecommendationRequest> rows = recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> Long.toString(row.getId()));
+    }
+
+    @Operation(summary= "List the current user's recommendation requests one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/mine")
+    public KeysetPage<RecommendationRequest> pageMyRecommendationRequests(
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        String email = getCurrentUser().getUser().getEmail();
+        int pageSize = KeysetPage.clampLimit(limit);
+        long afterId = (after == null) ? 0L : KeysetPage.decodeLongCursor(after);
+        List<RecommendationRequest> rows = recommendationRequestRepository.findByRequesterEmailAndIdGreaterThanOrderByIdAsc(email, afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> Long.toString(row.getId()));
+    }
+
+    @Operation(summary= "List recommendation requests addressed to a professor one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/professor")
+    public KeysetPage<RecommendationRequest> pageProfessorRecommendationRequests(
+            @Parameter(name="professorEmail") @RequestParam String professorEmail,
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        long afterId = (after == null) ? 0L : KeysetPage.decodeLongCursor(after);
+        List<RecommendationRequest> rows = recommendationRequestRepository.findByProfessorEmailAndIdGreaterThanOrderByIdAsc(professorEmail, afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> Long.toString(row.getId()));
+    }
+
+    // The cursor is the (dateNeeded, id) of the last row returned, so later pages
+    // carry on from there even though "now" has moved on.
+    @Operation(summary= "List open recommendation requests due within the next few days, soonest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/dueSoon")
+    public KeysetPage<RecommendationRequest> pageRecommendationRequestsDueSoon(
+            @Parameter(name="days") @RequestParam(defaultValue = "7") int days,
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime afterDate = now;
+        long afterId = 0L;
+        if (after != null) {
+            String key = KeysetPage.decodeCursor(after);
+            int separator = key.lastIndexOf(DUE_CURSOR_SEPARATOR);
+            try {
+                afterDate = LocalDateTime.parse(key.substring(0, separator));
+                afterId = Long.parseLong(key.substring(separator + 1));
+            } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                throw new InvalidCursorException(after);
+            }
+        }
+        List<RecommendationRequest> rows = recommendationRequestRepository.findDueSoon(afterDate, afterId, now.plusDays(days), PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> row.getDateNeeded() + DUE_CURSOR_SEPARATOR + row.getId());
     }
 
     @Operation(summary= "Create a new recommendation request")
@@ -90,19 +168,12 @@ public class RecommendationRequestController extends ApiController{
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid RecommendationRequest incoming) {
 
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-        recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
-        recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
-        recommendationRequest.setExplanation(incoming.getExplanation());
-        recommendationRequest.setDateRequested(incoming.getDateRequested());
-        recommendationRequest.setDateNeeded(incoming.getDateNeeded());
-        recommendationRequest.setDone(incoming.getDone());
-
-        recommendationRequestRepository.save(recommendationRequest);
+        incoming.setId(id);
+        if (recommendationRequestRepository.update(id, incoming) == 0) {
+            throw new EntityNotFoundException(RecommendationRequest.class, id);
+        }
 
-        return recommendationRequest;
+        return incoming;
     }
 
     @Operation(summary= "Delete a RecomendationRequest")
@@ -110,12 +181,21 @@ public class RecommendationRequestController extends ApiController{
     @DeleteMapping("")
     public Object deleteRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id) {
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+        if (recommendationRequestRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(RecommendationRequest.class, id);
+        }
 
-        recommendationRequestRepository.delete(recommendationRequest);
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 
+    @Operation(summary= "Delete several RecommendationRequests in one statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "", params = "ids")
+    public Object deleteRecommendationRequestBulk(
+            @Parameter(name="ids") @RequestParam List<Long> ids) {
+        int deleted = ids.isEmpty() ? 0 : recommendationRequestRepository.deleteAllByIdIn(ids);
+        return genericMessage("%d of %d RecommendationRequests deleted".formatted(deleted, ids.size()));
+    }
+
 
 }
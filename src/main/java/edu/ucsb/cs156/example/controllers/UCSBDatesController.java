@@ -2,6 +2,8 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,10 +14,12 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -23,9 +27,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 
 @Tag(name = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
@@ -33,15 +40,69 @@ import java.time.LocalDateTime;
 @Slf4j
 public class UCSBDatesController extends ApiController {
 
+    static final String RANGE_CURSOR_SEPARATOR = "|";
+
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
     @Operation(summary= "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDate> allUCSBDates() {
-        Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-        return dates;
+    public Iterable<UCSBDate> allUCSBDates(
+            @Parameter(name="unbounded", description="true to read every row in one response; otherwise at most ApiController.ALL_LIMIT rows, with X-Next-Cursor set when there are more") @RequestParam(defaultValue = "false") boolean unbounded,
+            HttpServletResponse response) {
+        if (unbounded) {
+            return ucsbDateRepository.findAll();
+        }
+        List<UCSBDate> dates = ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, ALL_LIMIT + 1));
+        return firstRowsOnly(dates, row -> Long.toString(row.getId()), response);
+    }
+
+    @Operation(summary= "List ucsb dates one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<UCSBDate> pageUCSBDates(
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        long afterId = (after == null) ? 0L : KeysetPage.decodeLongCursor(after);
+        List<UCSBDate> rows = ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> Long.toString(row.getId()));
+    }
+
+    @Operation(summary= "List the dates in one quarter, in date order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarter/{quarterYYYYQ}")
+    public List<UCSBDate> quarterUCSBDates(
+            @Parameter(name="quarterYYYYQ", description="e.g. 20224 for Fall 2022") @PathVariable String quarterYYYYQ) {
+        return ucsbDateRepository.findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc(quarterYYYYQ);
+    }
+
+    // The cursor is the (localDateTime, id) of the last row returned, since
+    // several dates can share a time.
+    @Operation(summary= "List the dates between two times, inclusive, in date order, one page at a time")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/range")
+    public KeysetPage<UCSBDate> rangeUCSBDates(
+            @Parameter(name="from", description="(in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to", description="(in iso format, e.g. YYYY-mm-ddTHH:MM:SS)") @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        LocalDateTime afterDate = from;
+        long afterId = 0L;
+        if (after != null) {
+            String key = KeysetPage.decodeCursor(after);
+            int separator = key.lastIndexOf(RANGE_CURSOR_SEPARATOR);
+            try {
+                afterDate = LocalDateTime.parse(key.substring(0, separator));
+                afterId = Long.parseLong(key.substring(separator + 1));
+            } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                throw new InvalidCursorException(after);
+            }
+        }
+        List<UCSBDate> rows = ucsbDateRepository.findInRange(from, to, afterDate, afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> row.getLocalDateTime() + RANGE_CURSOR_SEPARATOR + row.getId());
     }
 
     @Operation(summary= "Create a new date")
@@ -84,13 +145,22 @@ public class UCSBDatesController extends ApiController {
     @DeleteMapping("")
     public Object deleteUCSBDate(
             @Parameter(name="id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        if (ucsbDateRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(UCSBDate.class, id);
+        }
 
-        ucsbDateRepository.delete(ucsbDate);
         return genericMessage("UCSBDate with id %s deleted".formatted(id));
     }
 
+    @Operation(summary= "Delete several UCSBDates in one statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "", params = "ids")
+    public Object deleteUCSBDateBulk(
+            @Parameter(name="ids") @RequestParam List<Long> ids) {
+        int deleted = ids.isEmpty() ? 0 : ucsbDateRepository.deleteAllByIdIn(ids);
+        return genericMessage("%d of %d UCSBDates deleted".formatted(deleted, ids.size()));
+    }
+
     @Operation(summary= "Update a single date")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
@@ -98,15 +168,11 @@ public class UCSBDatesController extends ApiController {
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid UCSBDate incoming) {
 
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-        ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-        ucsbDate.setName(incoming.getName());
-        ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+        incoming.setId(id);
+        if (ucsbDateRepository.update(id, incoming) == 0) {
+            throw new EntityNotFoundException(UCSBDate.class, id);
+        }
 
-        ucsbDateRepository.save(ucsbDate);
-
-        return ucsbDate;
+        return incoming;
     }
 }
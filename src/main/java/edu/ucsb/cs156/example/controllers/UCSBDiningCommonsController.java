@@ -2,7 +2,10 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.NearbyCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsLocationService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,6 +13,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,8 +24,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import java.util.List;
+
 @Tag(name = "UCSBDiningCommons")
 @RequestMapping("/api/ucsbdiningcommons")
 @RestController
@@ -31,12 +38,44 @@ public class UCSBDiningCommonsController extends ApiController {
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    @Autowired
+    DiningCommonsLocationService diningCommonsLocations;
+
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public Iterable<UCSBDiningCommons> allCommonss(
+            @Parameter(name="unbounded", description="true to read every row in one response; otherwise at most ApiController.ALL_LIMIT rows, with X-Next-Cursor set when there are more") @RequestParam(defaultValue = "false") boolean unbounded,
+            HttpServletResponse response) {
+        if (unbounded) {
+            return ucsbDiningCommonsRepository.findAll();
+        }
+        List<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAllByOrderByCodeAsc(PageRequest.of(0, ALL_LIMIT + 1));
+        return firstRowsOnly(commons, row -> row.getCode(), response);
+    }
+
+    @Operation(summary= "List ucsb dining commons one page at a time, in code order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<UCSBDiningCommons> pageCommons(
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        List<UCSBDiningCommons> rows = (after == null)
+                ? ucsbDiningCommonsRepository.findAllByOrderByCodeAsc(pageRequest)
+                : ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(KeysetPage.decodeCursor(after), pageRequest);
+        return KeysetPage.of(rows, pageSize, row -> row.getCode());
+    }
+
+    @Operation(summary= "List the dining commons closest to a point, nearest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/nearest")
+    public List<NearbyCommons> nearestCommons(
+            @Parameter(name="lat") @RequestParam double lat,
+            @Parameter(name="lon") @RequestParam double lon,
+            @Parameter(name="k") @RequestParam(defaultValue = "3") int k) {
+        return diningCommonsLocations.nearest(lat, lon, k);
     }
 
     @Operation(summary= "Create a new commons")
@@ -63,6 +102,7 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(longitude);
 
         UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        diningCommonsLocations.saved(savedCommons);
 
         return savedCommons;
     }
@@ -83,13 +123,24 @@ public class UCSBDiningCommonsController extends ApiController {
     @DeleteMapping("")
     public Object deleteCommons(
             @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+        if (ucsbDiningCommonsRepository.deleteByIdReturningCount(code) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+        }
+        diningCommonsLocations.deleted(List.of(code));
 
-        ucsbDiningCommonsRepository.delete(commons);
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
+    @Operation(summary= "Delete several UCSBDiningCommons in one statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "", params = "codes")
+    public Object deleteCommonsBulk(
+            @Parameter(name="codes") @RequestParam List<String> codes) {
+        int deleted = codes.isEmpty() ? 0 : ucsbDiningCommonsRepository.deleteAllByIdIn(codes);
+        diningCommonsLocations.deleted(codes);
+        return genericMessage("%d of %d UCSBDiningCommons deleted".formatted(deleted, codes.size()));
+    }
+
     @Operation(summary= "Update a single commons")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
@@ -97,19 +148,12 @@ public class UCSBDiningCommonsController extends ApiController {
             @Parameter(name="code") @RequestParam String code,
             @RequestBody @Valid UCSBDiningCommons incoming) {
 
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-
-        commons.setName(incoming.getName());  
-        commons.setHasSackMeal(incoming.getHasSackMeal());
-        commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-        commons.setHasDiningCam(incoming.getHasDiningCam());
-        commons.setLatitude(incoming.getLatitude());
-        commons.setLongitude(incoming.getLongitude());
+        incoming.setCode(code);
+        if (ucsbDiningCommonsRepository.update(code, incoming) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+        }
+        diningCommonsLocations.saved(incoming);
 
-        ucsbDiningCommonsRepository.save(commons);
-
-        return commons;
+        return incoming;
     }
 }
@@ -3,6 +3,8 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.RankedMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,6 +16,7 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -25,9 +28,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Tag(name = "UCSBDiningCommonsMenuItem")
 @RequestMapping("/api/UCSBDiningCommonsMenuItem")
@@ -40,9 +48,64 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")	
-    public Iterable<UCSBDiningCommonsMenuItems> allUCSBDates() {
-        Iterable<UCSBDiningCommonsMenuItems> dates = ucsbDiningCommonsMenuItemsRepository.findAll();
-        return dates;
+    public Iterable<UCSBDiningCommonsMenuItems> allUCSBDates(
+            @Parameter(name="unbounded", description="true to read every row in one response; otherwise at most ApiController.ALL_LIMIT rows, with X-Next-Cursor set when there are more") @RequestParam(defaultValue = "false") boolean unbounded,
+            HttpServletResponse response) {
+        if (unbounded) {
+            return ucsbDiningCommonsMenuItemsRepository.findAll();
+        }
+        List<UCSBDiningCommonsMenuItems> dates = ucsbDiningCommonsMenuItemsRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, ALL_LIMIT + 1));
+        return firstRowsOnly(dates, row -> Long.toString(row.getId()), response);
+    }
+
+    @Operation(summary= "List menu items one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<UCSBDiningCommonsMenuItems> pageMenuItems(
+            @Parameter(name="after", description="nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        long afterId = (after == null) ? 0L : KeysetPage.decodeLongCursor(after);
+        List<UCSBDiningCommonsMenuItems> rows = ucsbDiningCommonsMenuItemsRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> Long.toString(row.getId()));
+    }
+
+    // Capped at ALL_LIMIT items like /all. The grouped response has no cursor
+    // to continue from, so past the cap it only sets TRUNCATED_HEADER; /page
+    // reads the whole table.
+    @Operation(summary= "List one dining commons' menu items, grouped by station")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/byCommons")
+    public Map<String, List<UCSBDiningCommonsMenuItems>> menuItemsByCommons(
+            @Parameter(name="diningCommonsCode") @RequestParam String diningCommonsCode,
+            @Parameter(name="station", description="only this station; omit for every station") @RequestParam(required = false) String station,
+            HttpServletResponse response) {
+        PageRequest pageRequest = PageRequest.of(0, ALL_LIMIT + 1);
+        List<UCSBDiningCommonsMenuItems> items = (station == null)
+                ? ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCodeOrderByStationAscNameAsc(diningCommonsCode, pageRequest)
+                : ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCodeAndStationOrderByNameAsc(diningCommonsCode, station, pageRequest);
+        if (items.size() > ALL_LIMIT) {
+            items = items.subList(0, ALL_LIMIT);
+            response.setHeader(TRUNCATED_HEADER, "true");
+        }
+
+        // rows arrive sorted by station, so insertion order keeps the stations sorted;
+        // JSON object keys cannot be null, so items with no station are grouped under ""
+        Map<String, List<UCSBDiningCommonsMenuItems>> byStation = new LinkedHashMap<>();
+        for (UCSBDiningCommonsMenuItems item : items) {
+            String key = (item.getStation() == null) ? "" : item.getStation();
+            byStation.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+        }
+        return byStation;
+    }
+
+    @Operation(summary= "Best-rated menu items at one dining commons, highest average first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/top")
+    public List<RankedMenuItem> topMenuItems(
+            @Parameter(name="commons", description="dining commons code, e.g. ortega") @RequestParam String commons,
+            @Parameter(name="n") @RequestParam(defaultValue = "10") int n) {
+        return ucsbDiningCommonsMenuItemsRepository.findTopRated(commons, PageRequest.of(0, KeysetPage.clampLimit(n)));
     }
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -87,16 +150,12 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid UCSBDiningCommonsMenuItems incoming) {
 
-                UCSBDiningCommonsMenuItems menuItem = ucsbDiningCommonsMenuItemsRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItems.class, id));
-
-                menuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
-                menuItem.setName(incoming.getName());
-                menuItem.setStation(incoming.getStation());
-
-        ucsbDiningCommonsMenuItemsRepository.save(menuItem);
+        incoming.setId(id);
+        if (ucsbDiningCommonsMenuItemsRepository.update(id, incoming) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommonsMenuItems.class, id);
+        }
 
-        return menuItem;
+        return incoming;
     } 
 
     @Operation(summary= "Delete a UCSBDine")
@@ -104,10 +163,19 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     @DeleteMapping("")
     public Object deleteUCSBDate(
             @Parameter(name="id") @RequestParam Long id) {
-                UCSBDiningCommonsMenuItems ucsbDate = ucsbDiningCommonsMenuItemsRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItems.class, id));
+        if (ucsbDiningCommonsMenuItemsRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommonsMenuItems.class, id);
+        }
 
-                ucsbDiningCommonsMenuItemsRepository.delete(ucsbDate);
         return genericMessage("UCSBDiningCommonsMenuItems with id 123 not found".formatted(id));
     }
+
+    @Operation(summary= "Delete several UCSBDiningCommonsMenuItems in one statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "", params = "ids")
+    public Object deleteUCSBDateBulk(
+            @Parameter(name="ids") @RequestParam List<Long> ids) {
+        int deleted = ids.isEmpty() ? 0 : ucsbDiningCommonsMenuItemsRepository.deleteAllByIdIn(ids);
+        return genericMessage("%d of %d UCSBDiningCommonsMenuItems deleted".formatted(deleted, ids.size()));
+    }
 }
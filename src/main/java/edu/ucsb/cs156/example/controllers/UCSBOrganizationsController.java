@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,6 +11,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,8 +22,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import java.util.List;
+
 @Tag(name = "UCSBOrganizations")
 @RequestMapping("/api/UCSBOrganization")
 @RestController
@@ -34,9 +39,28 @@ public class UCSBOrganizationsController extends ApiController {
     @Operation(summary = "List all UCSBOrganizations")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganizations> allOrgss() {
-        Iterable<UCSBOrganizations> orgs = ucsbOrganizationsRepository.findAll();
-        return orgs;
+    public Iterable<UCSBOrganizations> allOrgss(
+            @Parameter(name="unbounded", description="true to read every row in one response; otherwise at most ApiController.ALL_LIMIT rows, with X-Next-Cursor set when there are more") @RequestParam(defaultValue = "false") boolean unbounded,
+            HttpServletResponse response) {
+        if (unbounded) {
+            return ucsbOrganizationsRepository.findAll();
+        }
+        List<UCSBOrganizations> orgs = ucsbOrganizationsRepository.findAllByOrderByOrgCodeAsc(PageRequest.of(0, ALL_LIMIT + 1));
+        return firstRowsOnly(orgs, row -> row.getOrgCode(), response);
+    }
+
+    @Operation(summary = "List UCSBOrganizations one page at a time, in orgCode order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<UCSBOrganizations> pageOrgs(
+            @Parameter(name = "after", description = "nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String after,
+            @Parameter(name = "limit") @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        List<UCSBOrganizations> rows = (after == null)
+                ? ucsbOrganizationsRepository.findAllByOrderByOrgCodeAsc(pageRequest)
+                : ucsbOrganizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(KeysetPage.decodeCursor(after), pageRequest);
+        return KeysetPage.of(rows, pageSize, row -> row.getOrgCode());
     }
 
     @Operation(summary = "Create a new UCSBOrganizations")
@@ -75,13 +99,22 @@ public class UCSBOrganizationsController extends ApiController {
     @DeleteMapping("")
     public Object deleteOrgs(
             @Parameter(name = "orgCode") @RequestParam(name = "orgCode") String id) {
-        UCSBOrganizations orgs = ucsbOrganizationsRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, id));
+        if (ucsbOrganizationsRepository.deleteByIdReturningCount(id) == 0) {
+            throw new EntityNotFoundException(UCSBOrganizations.class, id);
+        }
 
-        ucsbOrganizationsRepository.delete(orgs);
         return genericMessage("UCSBOrganizations with id %s deleted".formatted(id));
     }
 
+    @Operation(summary = "Delete several UCSBOrganizations in one statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "", params = "orgCodes")
+    public Object deleteOrgsBulk(
+            @Parameter(name = "orgCodes") @RequestParam List<String> orgCodes) {
+        int deleted = orgCodes.isEmpty() ? 0 : ucsbOrganizationsRepository.deleteAllByIdIn(orgCodes);
+        return genericMessage("%d of %d UCSBOrganizations deleted".formatted(deleted, orgCodes.size()));
+    }
+
     @Operation(summary = "Update a single UCSBOrganizations")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
@@ -89,16 +122,11 @@ public class UCSBOrganizationsController extends ApiController {
             @Parameter(name = "orgCode") @RequestParam(name = "orgCode") String id,
             @RequestBody @Valid UCSBOrganizations incoming) {
 
-        UCSBOrganizations orgs = ucsbOrganizationsRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, id));
+        incoming.setOrgCode(id);
+        if (ucsbOrganizationsRepository.update(id, incoming) == 0) {
+            throw new EntityNotFoundException(UCSBOrganizations.class, id);
+        }
 
-        // orgs.setOrgCode(incoming.getOrgCode());
-        orgs.setOrgTranslationShort(incoming.getOrgTranslationShort());
-        orgs.setOrgTranslation(incoming.getOrgTranslation());
-        orgs.setInactive(incoming.getInactive());
-
-        ucsbOrganizationsRepository.save(orgs);
-
-        return orgs;
+        return incoming;
     }
 }
@@ -6,6 +6,7 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.SequenceGenerator;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,7 +20,8 @@ import lombok.Builder;
 @Entity(name = "helprequests")
 public class HelpRequest {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "helprequests_seq")
+  @SequenceGenerator(name = "helprequests_seq", sequenceName = "HELPREQUESTS_SEQ", allocationSize = 50)
   private long id;
 
   private String requesterEmail;
@@ -28,4 +30,6 @@ public class HelpRequest {
   private LocalDateTime requestTime;
   private String explanation;
   private boolean solved;
+  private String claimedBy;
+  private LocalDateTime claimedAt;
 }
\ No newline at end of file
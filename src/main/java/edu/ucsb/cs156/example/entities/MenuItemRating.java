@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+// Running totals of the reviews for one menu item, kept up to date as
+// reviews are written so that an item's rating is a single-row read.
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemrating")
+public class MenuItemRating {
+  @Id
+  private long itemId;
+
+  private long reviewCount;
+  private long starsTotal;
+  private long oneStar;
+  private long twoStars;
+  private long threeStars;
+  private long fourStars;
+  private long fiveStars;
+
+  public double getAverageStars() {
+    return (reviewCount == 0) ? 0.0 : (double) starsTotal / reviewCount;
+  }
+
+  // sign is +1 when a review with this many stars is added and -1 when it is removed;
+  // star counts outside 1..5 still count towards the total but have no histogram bucket
+  public void add(int stars, int sign) {
+    reviewCount += sign;
+    starsTotal += (long) stars * sign;
+    switch (stars) {
+      case 1: oneStar += sign; break;
+      case 2: twoStars += sign; break;
+      case 3: threeStars += sign; break;
+      case 4: fourStars += sign; break;
+      case 5: fiveStars += sign; break;
+      default: break;
+    }
+  }
+}
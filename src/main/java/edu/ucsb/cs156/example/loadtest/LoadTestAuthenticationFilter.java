@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Stands in for the Google login when the loadtest profile is active. A request
+// carrying "Authorization: Bearer <token>" is authenticated as the synthetic
+// user the token names (see LoadTestTokens); a bad token is refused with 401
+// rather than falling through to an anonymous request, so a misconfigured load
+// driver shows up as errors instead of as suspiciously fast 403s. Requests
+// without the header are left alone. SecurityConfig adds this to its filter
+// chain; it is not registered with the servlet container.
+
+public class LoadTestAuthenticationFilter extends OncePerRequestFilter {
+
+  static final String BEARER = "Bearer ";
+
+  private final LoadTestTokens tokens;
+
+  public LoadTestAuthenticationFilter(LoadTestTokens tokens) {
+    this.tokens = tokens;
+  }
+
+  public static boolean hasBearerToken(HttpServletRequest request) {
+    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+    return header != null && header.startsWith(BEARER);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    if (hasBearerToken(request)) {
+      String token = request.getHeader(HttpHeaders.AUTHORIZATION).substring(BEARER.length());
+      Optional<OAuth2AuthenticationToken> authentication = tokens.authenticate(token);
+      if (authentication.isEmpty()) {
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "invalid load test token");
+        return;
+      }
+      SecurityContextHolder.getContext().setAuthentication(authentication.get());
+    }
+    chain.doFilter(request, response);
+  }
+}
@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+
+// Synthetic users for load tests. User n (0 <= n < users) has the email
+// loadtest-user-n@ucsb.edu and the token "n.<signature>", where the signature
+// is an HMAC-SHA256 of n under the shared secret, so the load driver can mint
+// tokens for any user without a round trip and nobody without the secret can.
+// The first `admins` users are admins.
+//
+// authenticate builds the same OAuth2AuthenticationToken a Google login
+// produces, with the authorities SecurityConfig would map for it, so
+// CurrentUserService and the controllers cannot tell the difference.
+
+public class LoadTestTokens {
+
+  public static final String REGISTRATION_ID = "loadtest";
+
+  private final SecretKeySpec key;
+  private final int users;
+  private final int admins;
+
+  public LoadTestTokens(String secret, int users, int admins) {
+    this(secret, users, admins, "HmacSHA256");
+  }
+
+  LoadTestTokens(String secret, int users, int admins, String algorithm) {
+    if (secret == null || secret.isBlank()) {
+      throw new IllegalArgumentException("load test secret must be set (app.loadtest.secret or LOADTEST_SECRET)");
+    }
+    this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm);
+    this.users = users;
+    this.admins = admins;
+  }
+
+  public int users() {
+    return users;
+  }
+
+  public int admins() {
+    return admins;
+  }
+
+  public static String email(int user) {
+    return "loadtest-user-%d@ucsb.edu".formatted(user);
+  }
+
+  public String token(int user) {
+    return user + "." + signature(user);
+  }
+
+  public Optional<OAuth2AuthenticationToken> authenticate(String token) {
+    int dot = token.indexOf('.');
+    if (dot <= 0) {
+      return Optional.empty();
+    }
+    int user;
+    try {
+      user = Integer.parseInt(token.substring(0, dot));
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+    if (user < 0 || user >= users) {
+      return Optional.empty();
+    }
+    byte[] expected = signature(user).getBytes(StandardCharsets.US_ASCII);
+    byte[] actual = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+    if (!MessageDigest.isEqual(expected, actual)) {
+      return Optional.empty();
+    }
+    return Optional.of(authentication(user));
+  }
+
+  OAuth2AuthenticationToken authentication(int user) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("sub", "loadtest-" + user);
+    attributes.put("email", email(user));
+    attributes.put("email_verified", true);
+    attributes.put("name", "Load Test User " + user);
+    attributes.put("given_name", "Load Test");
+    attributes.put("family_name", "User " + user);
+    attributes.put("picture", "");
+    attributes.put("locale", "en");
+    attributes.put("hd", "ucsb.edu");
+
+    List<GrantedAuthority> authorities = new ArrayList<>();
+    authorities.add(new OAuth2UserAuthority(attributes));
+    authorities.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+    if (user < admins) {
+      authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+
+    DefaultOAuth2User principal = new DefaultOAuth2User(authorities, attributes, "sub");
+    return new OAuth2AuthenticationToken(principal, authorities, REGISTRATION_ID);
+  }
+
+  private String signature(int user) {
+    try {
+      Mac mac = Mac.getInstance(key.getAlgorithm());
+      mac.init(key);
+      byte[] digest = mac.doFinal(Integer.toString(user).getBytes(StandardCharsets.US_ASCII));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    } catch (GeneralSecurityException e) {
+      // only reachable with an algorithm the JVM lacks; HmacSHA256 is always present
+      throw new IllegalStateException(e);
+    }
+  }
+}
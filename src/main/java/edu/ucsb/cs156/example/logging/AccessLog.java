@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.logging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Bounded ring buffer between request threads and a single drainer thread.
+//
+// Request threads claim a slot by advancing tail with a CAS and then publish
+// the entry into it; nothing on that path blocks or takes a lock. When every
+// slot is still waiting to be drained the entry is dropped and counted rather
+// than making the request wait. The drainer takes entries in claim order,
+// clearing each slot before moving head past it, and stops at the first slot
+// whose entry has not been published yet. When there is nothing to do it
+// sleeps for IDLE_NANOS instead of being woken by producers.
+
+@Slf4j
+public class AccessLog {
+
+  static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final AtomicReferenceArray<AccessLogEntry> slots;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long head;
+  private final AtomicLong dropped = new AtomicLong();
+  private long reportedDrops;
+  private final Consumer<AccessLogEntry> sink;
+  private volatile boolean running;
+  private Thread drainer;
+
+  public AccessLog(int capacity) {
+    this(capacity, entry -> log.info("{}", entry));
+  }
+
+  AccessLog(int capacity, Consumer<AccessLogEntry> sink) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.sink = sink;
+  }
+
+  public int capacity() {
+    return slots.length();
+  }
+
+  public long dropped() {
+    return dropped.get();
+  }
+
+  public boolean offer(AccessLogEntry entry) {
+    long claimed;
+    do {
+      claimed = tail.get();
+      if (claimed - head >= slots.length()) {
+        dropped.incrementAndGet();
+        return false;
+      }
+    } while (!tail.compareAndSet(claimed, claimed + 1));
+    slots.lazySet((int) claimed & mask, entry);
+    return true;
+  }
+
+  // drainer thread only
+  int drain() {
+    int count = 0;
+    long next = head;
+    AccessLogEntry entry;
+    while ((entry = slots.get((int) next & mask)) != null) {
+      slots.lazySet((int) next & mask, null);
+      head = ++next;
+      sink.accept(entry);
+      count++;
+    }
+    long drops = dropped.get();
+    if (drops != reportedDrops) {
+      log.warn("Access log buffer full; {} entries dropped so far", drops);
+      reportedDrops = drops;
+    }
+    return count;
+  }
+
+  void pollOnce() {
+    if (drain() == 0) {
+      LockSupport.parkNanos(IDLE_NANOS);
+    }
+  }
+
+  // The servlet container and Spring may each initialise the filter that owns
+  // this, so a second call is ignored; there must only ever be one drainer.
+  public synchronized void start() {
+    if (drainer != null) {
+      return;
+    }
+    running = true;
+    drainer = new Thread(() -> {
+      while (running) {
+        pollOnce();
+      }
+      drain();
+    }, "access-log");
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  // Stops the drainer after it has written whatever was buffered.
+  public synchronized void stop() throws InterruptedException {
+    running = false;
+    if (drainer != null) {
+      drainer.join();
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.logging;
+
+import lombok.Value;
+
+// One request as recorded by AccessLogFilter. Building an entry only copies
+// references; the text is formatted by toString on the drainer thread.
+@Value
+public class AccessLogEntry {
+  String method;
+  String route;
+  int status;
+  long micros;
+  // -1 when the body was written through getWriter and not counted
+  long bytes;
+  String user;
+
+  @Override
+  public String toString() {
+    return "method=" + method + " route=" + route + " status=" + status
+        + " micros=" + micros + " bytes=" + bytes + " user=" + user;
+  }
+}
@@ -0,0 +1,168 @@
+package edu.ucsb.cs156.example.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+// Records one AccessLogEntry per request: method, the route template the
+// request matched (the URI when none did), status, latency, body bytes and the
+// authenticated principal's name. It runs just inside the Spring Security
+// filter chain so that the principal is still available when the request
+// finishes. Only app.accessLog.sampleRate of successful requests are recorded;
+// server errors always are. Formatting and writing happen on AccessLog's
+// drainer thread.
+
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+  final AccessLog accessLog;
+  final double sampleRate;
+  DoubleSupplier random = () -> ThreadLocalRandom.current().nextDouble();
+
+  public AccessLogFilter(
+      @Value("${app.accessLog.capacity:8192}") int capacity,
+      @Value("${app.accessLog.sampleRate:1.0}") double sampleRate) {
+    this(new AccessLog(capacity), sampleRate);
+  }
+
+  AccessLogFilter(AccessLog accessLog, double sampleRate) {
+    this.accessLog = accessLog;
+    this.sampleRate = sampleRate;
+  }
+
+  @Override
+  protected void initFilterBean() {
+    accessLog.start();
+  }
+
+  @Override
+  public void destroy() {
+    try {
+      accessLog.stop();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    long start = System.nanoTime();
+    CountingResponse counting = new CountingResponse(response);
+    boolean completed = false;
+    try {
+      chain.doFilter(request, counting);
+      completed = true;
+    } finally {
+      int status = completed ? counting.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+      if (status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR || random.getAsDouble() < sampleRate) {
+        accessLog.offer(new AccessLogEntry(request.getMethod(), route(request), status,
+            (System.nanoTime() - start) / 1000, counting.bytes(), user()));
+      }
+    }
+  }
+
+  private static String route(HttpServletRequest request) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return (pattern != null) ? pattern.toString() : request.getRequestURI();
+  }
+
+  private static String user() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+      return "-";
+    }
+    return authentication.getName();
+  }
+
+  static class CountingResponse extends HttpServletResponseWrapper {
+    private CountingOutputStream out;
+    private boolean usedWriter;
+
+    CountingResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (out == null) {
+        out = new CountingOutputStream(super.getOutputStream());
+      }
+      return out;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      usedWriter = true;
+      return super.getWriter();
+    }
+
+    long bytes() {
+      if (usedWriter) {
+        return -1;
+      }
+      return (out == null) ? 0 : out.count;
+    }
+  }
+
+  static class CountingOutputStream extends ServletOutputStream {
+    private final ServletOutputStream delegate;
+    private long count;
+
+    CountingOutputStream(ServletOutputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      delegate.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      delegate.write(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+    @Override
+    public boolean isReady() {
+      return delegate.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener listener) {
+      delegate.setWriteListener(listener);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.logging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+
+// Development only: counts the JDBC work each request does (see QueryStats)
+// and reports it in response headers,
+//
+//   X-Query-Count: 3
+//   X-Query-Repeated: 1
+//   Server-Timing: db;dur=1.8;desc="3 statements, 12 rows"
+//
+// and logs a warning naming any SQL that ran more than once. The headers are
+// added when the body is first written, which is after the controller has
+// done its queries, since open-in-view is off and serialization cannot load
+// anything more.
+//
+// Streaming responses (the HelpRequest event stream, the MenuItemReview
+// export) get no headers: they start async processing before the first write
+// and do their queries on other threads, which are not counted, so whatever
+// the request thread saw would understate them.
+
+@Slf4j
+@Component
+@Profile("development")
+public class QueryCountFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    QueryStats stats = QueryStats.begin();
+    StatsResponse statsResponse = new StatsResponse(request, response, stats);
+    try {
+      chain.doFilter(request, statsResponse);
+      statsResponse.writeHeaders();
+    } finally {
+      QueryStats.end();
+      Map<String, Integer> repeated = stats.repeated();
+      if (!repeated.isEmpty()) {
+        log.warn("{} {} ran the same SQL more than once: {}", request.getMethod(), request.getRequestURI(), repeated);
+      }
+    }
+  }
+
+  static class StatsResponse extends HttpServletResponseWrapper {
+    private final HttpServletRequest request;
+    private final QueryStats stats;
+    private boolean headersWritten;
+
+    StatsResponse(HttpServletRequest request, HttpServletResponse response, QueryStats stats) {
+      super(response);
+      this.request = request;
+      this.stats = stats;
+    }
+
+    void writeHeaders() {
+      if (headersWritten || isCommitted() || request.isAsyncStarted()) {
+        return;
+      }
+      headersWritten = true;
+      setHeader("X-Query-Count", Integer.toString(stats.getStatements()));
+      setHeader("X-Query-Repeated", Integer.toString(stats.repeated().size()));
+      setHeader("Server-Timing", String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d statements, %d rows\"",
+          stats.getJdbcNanos() / 1e6, stats.getStatements(), stats.getRows()));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      writeHeaders();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      writeHeaders();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      writeHeaders();
+      super.flushBuffer();
+    }
+  }
+}
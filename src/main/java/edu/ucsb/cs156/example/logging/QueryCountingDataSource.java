@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.logging;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Wraps a DataSource so that the connections, statements and result sets it
+// hands out report to the current QueryStats: each execute call is timed and
+// counted under its SQL, update counts are added as rows, and each row a
+// result set moves onto is counted. Everything else is passed straight to the
+// real JDBC object. The DataSource itself is a DelegatingDataSource, so unwrap
+// and isWrapperFor still reach the pool (Boot's Hikari metrics rely on that).
+// Meant for the development profile only.
+
+public final class QueryCountingDataSource {
+
+  private QueryCountingDataSource() {}
+
+  public static DataSource wrap(DataSource dataSource) {
+    return new DelegatingDataSource(dataSource) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+      }
+    };
+  }
+
+  private static Connection connection(Connection connection) {
+    return proxy(Connection.class, (p, method, args) -> {
+      Object result = call(connection, method, args);
+      if (result instanceof Statement statement) {
+        return statement(method.getReturnType(), statement, sqlArgument(args));
+      }
+      return result;
+    });
+  }
+
+  // type is whichever of Statement, PreparedStatement or CallableStatement the
+  // connection method was declared to return
+  private static Object statement(Class<?> type, Statement statement, String preparedSql) {
+    return proxy(type, (p, method, args) -> {
+      if (!method.getName().startsWith("execute")) {
+        Object result = call(statement, method, args);
+        return (method.getName().equals("getResultSet") && result != null) ? resultSet((ResultSet) result) : result;
+      }
+      String sql = (sqlArgument(args) != null) ? sqlArgument(args) : preparedSql;
+      long start = System.nanoTime();
+      Object result;
+      try {
+        result = call(statement, method, args);
+      } finally {
+        QueryStats.recordStatement(sql, System.nanoTime() - start);
+      }
+      if (result instanceof ResultSet resultSet) {
+        return resultSet(resultSet);
+      }
+      QueryStats.recordRows(updateCount(result));
+      return result;
+    });
+  }
+
+  private static ResultSet resultSet(ResultSet resultSet) {
+    return proxy(ResultSet.class, (p, method, args) -> {
+      Object result = call(resultSet, method, args);
+      if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+        QueryStats.recordRows(1);
+      }
+      return result;
+    });
+  }
+
+  private static String sqlArgument(Object[] args) {
+    return (args != null && args[0] instanceof String sql) ? sql : null;
+  }
+
+  // executeUpdate and executeBatch report changed rows; execute reports a
+  // boolean, and batch entries may be SUCCESS_NO_INFO (-2), neither of which
+  // says how many rows changed
+  static long updateCount(Object result) {
+    if (result instanceof Number count) {
+      return Math.max(0, count.longValue());
+    }
+    long total = 0;
+    if (result instanceof int[] counts) {
+      for (int count : counts) {
+        total += Math.max(0, count);
+      }
+    } else if (result instanceof long[] counts) {
+      for (long count : counts) {
+        total += Math.max(0, count);
+      }
+    }
+    return total;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[] { type }, handler);
+  }
+
+  private static Object call(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
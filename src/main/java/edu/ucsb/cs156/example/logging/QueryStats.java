@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.logging;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// JDBC work done on behalf of one HTTP request: statements executed, rows
+// returned or changed, time spent inside execute calls, and how many times
+// each SQL string ran. QueryCountFilter makes an instance current for the
+// request thread and QueryCountingDataSource adds to it; JDBC calls made with
+// no current instance, at startup or on background threads, are not counted.
+
+public class QueryStats {
+
+  private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+  private int statements;
+  private long rows;
+  private long jdbcNanos;
+  private final Map<String, Integer> executions = new HashMap<>();
+
+  static QueryStats begin() {
+    QueryStats stats = new QueryStats();
+    CURRENT.set(stats);
+    return stats;
+  }
+
+  static void end() {
+    CURRENT.remove();
+  }
+
+  static void recordStatement(String sql, long nanos) {
+    QueryStats stats = CURRENT.get();
+    if (stats != null) {
+      stats.statements++;
+      stats.jdbcNanos += nanos;
+      stats.executions.merge(String.valueOf(sql), 1, Integer::sum);
+    }
+  }
+
+  static void recordRows(long count) {
+    QueryStats stats = CURRENT.get();
+    if (stats != null) {
+      stats.rows += count;
+    }
+  }
+
+  public int getStatements() {
+    return statements;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public long getJdbcNanos() {
+    return jdbcNanos;
+  }
+
+  // SQL strings that ran more than once, with their counts; the usual sign of
+  // an N+1 load or of a row being read again that the request already had
+  public Map<String, Integer> repeated() {
+    Map<String, Integer> repeated = new LinkedHashMap<>();
+    executions.forEach((sql, count) -> {
+      if (count > 1) {
+        repeated.put(sql, count);
+      }
+    });
+    return repeated;
+  }
+}
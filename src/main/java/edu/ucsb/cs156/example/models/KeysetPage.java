@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset (cursor) paginated listing.
+// nextCursor is opaque to clients; pass it back as ?after= to get the next page.
+// It is null on the last page.
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class KeysetPage<T> {
+  public static final int MAX_LIMIT = 1000;
+
+  private List<T> content;
+  private String nextCursor;
+
+  public static int clampLimit(int limit) {
+    return Math.max(1, Math.min(limit, MAX_LIMIT));
+  }
+
+  // rows should be fetched with limit + 1 so that we know whether there is a next page
+  // without issuing a separate count query.
+  public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, String> key) {
+    if (rows.size() <= limit) {
+      return new KeysetPage<>(rows, null);
+    }
+    List<T> content = new ArrayList<>(rows.subList(0, limit));
+    return new KeysetPage<>(content, encodeCursor(key.apply(content.get(limit - 1))));
+  }
+
+  public static String encodeCursor(String key) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static String decodeCursor(String cursor) {
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+
+  public static long decodeLongCursor(String cursor) {
+    try {
+      return Long.parseLong(decodeCursor(cursor));
+    } catch (NumberFormatException e) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+}
@@ -2,11 +2,41 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Articles;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 
 @Repository
 public interface ArticlesRepository extends CrudRepository<Articles, Long> {
   Iterable<Articles> findAllByTitle(String title);
-}
\ No newline at end of file
+  List<Articles> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("update articles a set "
+      + "a.title = :#{#incoming.title}, "
+      + "a.url = :#{#incoming.url}, "
+      + "a.explanation = :#{#incoming.explanation}, "
+      + "a.email = :#{#incoming.email}, "
+      + "a.dateAdded = :#{#incoming.dateAdded} "
+      + "where a.id = :id")
+  int update(@Param("id") long id, @Param("incoming") Articles incoming);
+
+  @Modifying
+  @Transactional
+  @Query("delete from articles a where a.id = :id")
+  int deleteByIdReturningCount(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  @Query("delete from articles a where a.id in :ids")
+  int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,9 @@
+package edu.ucsb.cs156.example.repositories;
+
+// Repository fragment that lets streaming endpoints evict each row from the
+// persistence context once it has been written, so memory stays flat no matter
+// how many rows the cursor returns.
+
+public interface DetachingRepository {
+  void detach(Object entity);
+}
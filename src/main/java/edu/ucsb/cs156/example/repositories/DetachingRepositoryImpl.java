@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.repositories;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+public class DetachingRepositoryImpl implements DetachingRepository {
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public void detach(Object entity) {
+    entityManager.detach(entity);
+  }
+}
@@ -2,11 +2,70 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
- 
-}
\ No newline at end of file
+public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long>, DetachingRepository {
+  List<HelpRequest> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<HelpRequest> streamAllByOrderByIdAsc();
+
+  // the open queue; these three are served by IDX_HELPREQUESTS_OPEN_QUEUE
+  List<HelpRequest> findBySolvedFalseOrderByRequestTimeAscIdAsc(Pageable pageable);
+
+  long countBySolvedFalse();
+
+  @Query("select min(h.requestTime) from helprequests h where h.solved = false")
+  LocalDateTime findOldestOpenRequestTime();
+
+  List<HelpRequest> findBySolvedFalseAndClaimedByIsNullOrderByRequestTimeAscIdAsc(Pageable pageable);
+
+  // only one of any number of concurrent callers can match the row, so at most
+  // one of them gets 1 back
+  @Modifying
+  @Transactional
+  @Query("update helprequests h set h.claimedBy = :claimedBy, h.claimedAt = :claimedAt "
+      + "where h.id = :id and h.solved = false and h.claimedBy is null")
+  int claim(@Param("id") long id, @Param("claimedBy") String claimedBy, @Param("claimedAt") LocalDateTime claimedAt);
+
+  @Modifying
+  @Transactional
+  @Query("update helprequests h set "
+      + "h.requesterEmail = :#{#incoming.requesterEmail}, "
+      + "h.teamId = :#{#incoming.teamId}, "
+      + "h.tableOrBreakoutRoom = :#{#incoming.tableOrBreakoutRoom}, "
+      + "h.requestTime = :#{#incoming.requestTime}, "
+      + "h.explanation = :#{#incoming.explanation}, "
+      + "h.solved = :#{#incoming.solved} "
+      + "where h.id = :id")
+  int update(@Param("id") long id, @Param("incoming") HelpRequest incoming);
+
+  @Modifying
+  @Transactional
+  @Query("delete from helprequests h where h.id = :id")
+  int deleteByIdReturningCount(@Param("id") long id);
+
+  @Query("select h.id from helprequests h where h.id in :ids")
+  List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Transactional
+  @Query("delete from helprequests h where h.id in :ids")
+  int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,10 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+
+// Repository fragment that adds a delta to an item's rollup row, creating the
+// row if the item has none yet, as one atomic step.
+
+public interface MenuItemRatingUpsert {
+  void upsert(MenuItemRating delta);
+}
@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+// Postgres gets INSERT ... ON CONFLICT DO UPDATE, which is atomic even when two
+// transactions add the first review of an item at once. H2 has no ON CONFLICT,
+// so development and tests use MERGE; when a concurrent MERGE inserted the row
+// first, H2 fails with a primary key violation that rolls back only that
+// statement (Postgres would abort the whole transaction), and running the
+// MERGE again takes the update branch.
+//
+// The statements run over the session's JDBC connection rather than as a
+// Hibernate native query, because Hibernate marks the transaction rollback-only
+// on any failed query, even one that is retried.
+
+public class MenuItemRatingUpsertImpl implements MenuItemRatingUpsert {
+
+  static final String POSTGRES = "INSERT INTO MENUITEMRATING "
+      + "(ITEM_ID, REVIEW_COUNT, STARS_TOTAL, ONE_STAR, TWO_STARS, THREE_STARS, FOUR_STARS, FIVE_STARS) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+      + "ON CONFLICT (ITEM_ID) DO UPDATE SET "
+      + "REVIEW_COUNT = MENUITEMRATING.REVIEW_COUNT + EXCLUDED.REVIEW_COUNT, "
+      + "STARS_TOTAL = MENUITEMRATING.STARS_TOTAL + EXCLUDED.STARS_TOTAL, "
+      + "ONE_STAR = MENUITEMRATING.ONE_STAR + EXCLUDED.ONE_STAR, "
+      + "TWO_STARS = MENUITEMRATING.TWO_STARS + EXCLUDED.TWO_STARS, "
+      + "THREE_STARS = MENUITEMRATING.THREE_STARS + EXCLUDED.THREE_STARS, "
+      + "FOUR_STARS = MENUITEMRATING.FOUR_STARS + EXCLUDED.FOUR_STARS, "
+      + "FIVE_STARS = MENUITEMRATING.FIVE_STARS + EXCLUDED.FIVE_STARS";
+
+  static final String H2 = "MERGE INTO MENUITEMRATING R USING (SELECT "
+      + "CAST(? AS BIGINT) AS ITEM_ID, CAST(? AS BIGINT) AS REVIEW_COUNT, CAST(? AS BIGINT) AS STARS_TOTAL, "
+      + "CAST(? AS BIGINT) AS ONE_STAR, CAST(? AS BIGINT) AS TWO_STARS, CAST(? AS BIGINT) AS THREE_STARS, "
+      + "CAST(? AS BIGINT) AS FOUR_STARS, CAST(? AS BIGINT) AS FIVE_STARS) D "
+      + "ON R.ITEM_ID = D.ITEM_ID "
+      + "WHEN MATCHED THEN UPDATE SET "
+      + "R.REVIEW_COUNT = R.REVIEW_COUNT + D.REVIEW_COUNT, "
+      + "R.STARS_TOTAL = R.STARS_TOTAL + D.STARS_TOTAL, "
+      + "R.ONE_STAR = R.ONE_STAR + D.ONE_STAR, "
+      + "R.TWO_STARS = R.TWO_STARS + D.TWO_STARS, "
+      + "R.THREE_STARS = R.THREE_STARS + D.THREE_STARS, "
+      + "R.FOUR_STARS = R.FOUR_STARS + D.FOUR_STARS, "
+      + "R.FIVE_STARS = R.FIVE_STARS + D.FIVE_STARS "
+      + "WHEN NOT MATCHED THEN INSERT "
+      + "(ITEM_ID, REVIEW_COUNT, STARS_TOTAL, ONE_STAR, TWO_STARS, THREE_STARS, FOUR_STARS, FIVE_STARS) "
+      + "VALUES (D.ITEM_ID, D.REVIEW_COUNT, D.STARS_TOTAL, D.ONE_STAR, D.TWO_STARS, D.THREE_STARS, D.FOUR_STARS, D.FIVE_STARS)";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public void upsert(MenuItemRating delta) {
+    entityManager.unwrap(Session.class).doWork(connection -> upsert(connection, delta));
+  }
+
+  static void upsert(Connection connection, MenuItemRating delta) throws SQLException {
+    if ("PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+      execute(connection, POSTGRES, delta);
+      return;
+    }
+    try {
+      execute(connection, H2, delta);
+    } catch (SQLIntegrityConstraintViolationException e) {
+      execute(connection, H2, delta);
+    }
+  }
+
+  private static void execute(Connection connection, String sql, MenuItemRating delta) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setLong(1, delta.getItemId());
+      statement.setLong(2, delta.getReviewCount());
+      statement.setLong(3, delta.getStarsTotal());
+      statement.setLong(4, delta.getOneStar());
+      statement.setLong(5, delta.getTwoStars());
+      statement.setLong(6, delta.getThreeStars());
+      statement.setLong(7, delta.getFourStars());
+      statement.setLong(8, delta.getFiveStars());
+      statement.executeUpdate();
+    }
+  }
+}
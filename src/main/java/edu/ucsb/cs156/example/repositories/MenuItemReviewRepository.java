@@ -2,10 +2,60 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
-}
\ No newline at end of file
+public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long>, DetachingRepository {
+  List<MenuItemReview> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+  @Query("select r from menuitemreview r where r.id > :after and r.dateReviewed >= :since and r.dateReviewed < :until order by r.id")
+  Stream<MenuItemReview> streamForExport(@Param("after") long after, @Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+  // Row locks held until commit, so two writers changing the same review
+  // cannot both subtract its old stars from the rating rollup.
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<MenuItemReview> findForUpdateById(long id);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  List<MenuItemReview> findForUpdateByIdIn(Collection<Long> ids);
+
+  @Modifying
+  @Transactional
+  @Query("update menuitemreview m set "
+      + "m.itemID = :#{#incoming.itemID}, "
+      + "m.reviewerEmail = :#{#incoming.reviewerEmail}, "
+      + "m.stars = :#{#incoming.stars}, "
+      + "m.dateReviewed = :#{#incoming.dateReviewed}, "
+      + "m.comments = :#{#incoming.comments} "
+      + "where m.id = :id")
+  int update(@Param("id") long id, @Param("incoming") MenuItemReview incoming);
+
+  @Modifying
+  @Transactional
+  @Query("delete from menuitemreview m where m.id = :id")
+  int deleteByIdReturningCount(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  @Query("delete from menuitemreview m where m.id in :ids")
+  int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -3,10 +3,51 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
-  Iterable<RecommendationRequest> findAllByRequesterEmail(String requesterEmail);
+  List<RecommendationRequest> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+  List<RecommendationRequest> findByRequesterEmailAndIdGreaterThanOrderByIdAsc(String requesterEmail, long id, Pageable pageable);
+  List<RecommendationRequest> findByProfessorEmailAndIdGreaterThanOrderByIdAsc(String professorEmail, long id, Pageable pageable);
+
+  // open requests due by :until, in (dateNeeded, id) order starting after the cursor
+  @Query("select r from recommendationrequest r "
+      + "where r.done = false and r.dateNeeded <= :until "
+      + "and (r.dateNeeded > :afterDate or (r.dateNeeded = :afterDate and r.id > :afterId)) "
+      + "order by r.dateNeeded, r.id")
+  List<RecommendationRequest> findDueSoon(@Param("afterDate") LocalDateTime afterDate, @Param("afterId") long afterId,
+      @Param("until") LocalDateTime until, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("update recommendationrequest r set "
+      + "r.requesterEmail = :#{#incoming.requesterEmail}, "
+      + "r.professorEmail = :#{#incoming.professorEmail}, "
+      + "r.explanation = :#{#incoming.explanation}, "
+      + "r.dateRequested = :#{#incoming.dateRequested}, "
+      + "r.dateNeeded = :#{#incoming.dateNeeded}, "
+      + "r.done = :#{#incoming.done} "
+      + "where r.id = :id")
+  int update(@Param("id") long id, @Param("incoming") RecommendationRequest incoming);
+
+  @Modifying
+  @Transactional
+  @Query("delete from recommendationrequest r where r.id = :id")
+  int deleteByIdReturningCount(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  @Query("delete from recommendationrequest r where r.id in :ids")
+  int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -2,11 +2,65 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
-  Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
-}
\ No newline at end of file
+  // Dates for a quarter are cached under the quarter code. save evicts just that
+  // quarter; update and delete do not know which quarter the old row was in, so
+  // they evict every quarter. Writes through other CrudRepository methods are not
+  // tracked, so the controller should not use them.
+  String QUARTER_CACHE = "ucsbDatesByQuarter";
+
+  @Cacheable(QUARTER_CACHE)
+  List<UCSBDate> findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc(String quarterYYYYQ);
+
+  List<UCSBDate> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  // dates from :from to :to inclusive, in (localDateTime, id) order starting after the cursor
+  @Query("select u from ucsbdates u "
+      + "where u.localDateTime >= :from and u.localDateTime <= :to "
+      + "and (u.localDateTime > :afterDate or (u.localDateTime = :afterDate and u.id > :afterId)) "
+      + "order by u.localDateTime, u.id")
+  List<UCSBDate> findInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+      @Param("afterDate") LocalDateTime afterDate, @Param("afterId") long afterId, Pageable pageable);
+
+  @Override
+  @CacheEvict(value = QUARTER_CACHE, key = "#p0.quarterYYYYQ")
+  <S extends UCSBDate> S save(S entity);
+
+  @CacheEvict(value = QUARTER_CACHE, allEntries = true)
+  @Modifying
+  @Transactional
+  @Query("update ucsbdates u set "
+      + "u.quarterYYYYQ = :#{#incoming.quarterYYYYQ}, "
+      + "u.name = :#{#incoming.name}, "
+      + "u.localDateTime = :#{#incoming.localDateTime} "
+      + "where u.id = :id")
+  int update(@Param("id") long id, @Param("incoming") UCSBDate incoming);
+
+  @CacheEvict(value = QUARTER_CACHE, allEntries = true)
+  @Modifying
+  @Transactional
+  @Query("delete from ucsbdates u where u.id = :id")
+  int deleteByIdReturningCount(@Param("id") long id);
+
+  @CacheEvict(value = QUARTER_CACHE, allEntries = true)
+  @Modifying
+  @Transactional
+  @Query("delete from ucsbdates u where u.id in :ids")
+  int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,14 +1,53 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import edu.ucsb.cs156.example.models.RankedMenuItem;
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
 
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 
 @Repository
 public interface UCSBDiningCommonsMenuItemsRepository extends CrudRepository<UCSBDiningCommonsMenuItems, Long> {
-//   Iterable<UCSBDiningCommonsMenuItems> findAllBydiningCommonsCode(String diningCommonsCode);
-}
\ No newline at end of file
+  // both served by the (DINING_COMMONS_CODE, STATION) index
+  List<UCSBDiningCommonsMenuItems> findAllByDiningCommonsCodeOrderByStationAscNameAsc(String diningCommonsCode, Pageable pageable);
+  List<UCSBDiningCommonsMenuItems> findAllByDiningCommonsCodeAndStationOrderByNameAsc(String diningCommonsCode, String station, Pageable pageable);
+  List<UCSBDiningCommonsMenuItems> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  // Reads one rollup row per item in the commons rather than every review;
+  // items nobody has reviewed yet are left out.
+  @Query("select new edu.ucsb.cs156.example.models.RankedMenuItem(i, r) "
+      + "from ucsbdiningcommonsmenuitems i, menuitemrating r "
+      + "where r.itemId = i.id and i.diningCommonsCode = :commons and r.reviewCount > 0 "
+      + "order by cast(r.starsTotal as double) / r.reviewCount desc, r.reviewCount desc, i.id asc")
+  List<RankedMenuItem> findTopRated(@Param("commons") String commons, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("update ucsbdiningcommonsmenuitems u set "
+      + "u.diningCommonsCode = :#{#incoming.diningCommonsCode}, "
+      + "u.name = :#{#incoming.name}, "
+      + "u.station = :#{#incoming.station} "
+      + "where u.id = :id")
+  int update(@Param("id") long id, @Param("incoming") UCSBDiningCommonsMenuItems incoming);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ucsbdiningcommonsmenuitems u where u.id = :id")
+  int deleteByIdReturningCount(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ucsbdiningcommonsmenuitems u where u.id in :ids")
+  int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -3,11 +3,55 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
 
 
 @Repository
 public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
- 
-}
\ No newline at end of file
+  // Served from the query cache; Hibernate invalidates it whenever this table is written.
+  // Used by /all?unbounded=true.
+  @Override
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+  Iterable<UCSBDiningCommons> findAll();
+
+  // /all and /page, cached the same way: one entry per cursor and page size
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+  List<UCSBDiningCommons> findAllByOrderByCodeAsc(Pageable pageable);
+
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+  List<UCSBDiningCommons> findByCodeGreaterThanOrderByCodeAsc(String code, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("update ucsbdiningcommons u set "
+      + "u.name = :#{#incoming.name}, "
+      + "u.hasSackMeal = :#{#incoming.hasSackMeal}, "
+      + "u.hasTakeOutMeal = :#{#incoming.hasTakeOutMeal}, "
+      + "u.hasDiningCam = :#{#incoming.hasDiningCam}, "
+      + "u.latitude = :#{#incoming.latitude}, "
+      + "u.longitude = :#{#incoming.longitude} "
+      + "where u.code = :code")
+  int update(@Param("code") String code, @Param("incoming") UCSBDiningCommons incoming);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ucsbdiningcommons u where u.code = :code")
+  int deleteByIdReturningCount(@Param("code") String code);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ucsbdiningcommons u where u.code in :codes")
+  int deleteAllByIdIn(@Param("codes") Collection<String> codes);
+}
@@ -1,11 +1,52 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UCSBOrganizationsRepository extends CrudRepository<UCSBOrganizations, String> {
+  // Served from the query cache; Hibernate invalidates it whenever this table is written.
+  // Used by /all?unbounded=true.
+  @Override
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+  Iterable<UCSBOrganizations> findAll();
+
+  // /all and /page, cached the same way: one entry per cursor and page size
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+  List<UCSBOrganizations> findAllByOrderByOrgCodeAsc(Pageable pageable);
+
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+  List<UCSBOrganizations> findByOrgCodeGreaterThanOrderByOrgCodeAsc(String orgCode, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("update ucsborganizations u set "
+      + "u.orgTranslationShort = :#{#incoming.orgTranslationShort}, "
+      + "u.orgTranslation = :#{#incoming.orgTranslation}, "
+      + "u.inactive = :#{#incoming.inactive} "
+      + "where u.orgCode = :orgCode")
+  int update(@Param("orgCode") String orgCode, @Param("incoming") UCSBOrganizations incoming);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ucsborganizations u where u.orgCode = :orgCode")
+  int deleteByIdReturningCount(@Param("orgCode") String orgCode);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ucsborganizations u where u.orgCode in :orgCodes")
+  int deleteAllByIdIn(@Param("orgCodes") Collection<String> orgCodes);
 }
@@ -1,12 +1,29 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
+  // The admin flag is cached per email for the authority mapping done at every
+  // login; an email with no row is cached as empty. save, the only way the app
+  // changes a user, evicts that email.
+  String ADMIN_CACHE = "adminFlagsByEmail";
+
   Optional<User> findByEmail(String email);
+
+  @Cacheable(ADMIN_CACHE)
+  @Query("select u.admin from users u where u.email = :email")
+  Optional<Boolean> findAdminByEmail(@Param("email") String email);
+
+  @Override
+  @CacheEvict(value = ADMIN_CACHE, key = "#p0.email")
+  <S extends User> S save(S entity);
 }
@@ -0,0 +1,207 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over article titles and explanations, ranked by
+// tf-idf with title matches counting TITLE_BOOST times as much as matches in
+// the explanation.
+//
+// The index is filled from the database in the background once the application
+// has started, while the controller reports every write here as it happens.
+// A row read by that initial load is older than any write reported directly,
+// so the load never replaces an article that is already indexed and never
+// brings back one that was deleted while it was running. If the load fails it
+// is logged and the index keeps whatever had been added by then.
+
+@Slf4j
+@Service("articleSearch")
+public class ArticleSearchService {
+
+  static final int TITLE_BOOST = 3;
+
+  private static final Comparator<ArticleSearchHit> BY_RANK =
+      Comparator.comparingDouble(ArticleSearchHit::getScore).reversed()
+          .thenComparingLong(hit -> hit.getArticle().getId());
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  Executor executor = Executors.newCachedThreadPool(daemonThreads());
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // term -> (article id -> weighted term frequency)
+  private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+  private final Map<Long, Articles> articles = new HashMap<>();
+  private final Map<Long, Set<String>> termsByArticle = new HashMap<>();
+  private final Set<Long> deletedDuringLoad = new HashSet<>();
+  private boolean loading = false;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    startInitialLoad();
+  }
+
+  CompletableFuture<Void> startInitialLoad() {
+    lock.writeLock().lock();
+    try {
+      loading = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    return CompletableFuture.runAsync(this::initialLoad, executor)
+        .whenComplete((ignored, e) -> {
+          if (e != null) {
+            log.error("Initial load of the search index failed", e);
+          }
+        });
+  }
+
+  void initialLoad() {
+    int count = 0;
+    try {
+      for (Articles article : articlesRepository.findAll()) {
+        lock.writeLock().lock();
+        try {
+          if (!articles.containsKey(article.getId()) && !deletedDuringLoad.contains(article.getId())) {
+            add(article);
+            count++;
+          }
+        } finally {
+          lock.writeLock().unlock();
+        }
+      }
+    } finally {
+      lock.writeLock().lock();
+      try {
+        loading = false;
+        deletedDuringLoad.clear();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+    log.info("Indexed {} articles for search", count);
+  }
+
+  public void index(Articles article) {
+    lock.writeLock().lock();
+    try {
+      remove(article.getId());
+      add(article);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void deleted(Collection<Long> ids) {
+    lock.writeLock().lock();
+    try {
+      for (Long id : ids) {
+        remove(id);
+        if (loading) {
+          deletedDuringLoad.add(id);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public List<ArticleSearchHit> search(String query, int limit) {
+    Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+    List<ArticleSearchHit> hits = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      Map<Long, Double> scores = new HashMap<>();
+      for (String term : queryTerms) {
+        Map<Long, Integer> posting = postings.get(term);
+        if (posting == null) {
+          continue;
+        }
+        double idf = Math.log(1.0 + (double) articles.size() / posting.size());
+        posting.forEach((id, tf) -> scores.merge(id, tf * idf, Double::sum));
+      }
+      scores.forEach((id, score) -> hits.add(new ArticleSearchHit(articles.get(id), score)));
+    } finally {
+      lock.readLock().unlock();
+    }
+    hits.sort(BY_RANK);
+    return (hits.size() > limit) ? new ArrayList<>(hits.subList(0, limit)) : hits;
+  }
+
+  static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+      if (!term.isEmpty()) {
+        terms.add(term);
+      }
+    }
+    return terms;
+  }
+
+  private static ThreadFactory daemonThreads() {
+    CustomizableThreadFactory threads = new CustomizableThreadFactory("article-search-load-");
+    threads.setDaemon(true);
+    return threads;
+  }
+
+  // callers hold the write lock
+  private void add(Articles article) {
+    Map<String, Integer> weights = new HashMap<>();
+    for (String term : tokenize(article.getTitle())) {
+      weights.merge(term, TITLE_BOOST, Integer::sum);
+    }
+    for (String term : tokenize(article.getExplanation())) {
+      weights.merge(term, 1, Integer::sum);
+    }
+    weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(article.getId(), weight));
+    articles.put(article.getId(), article);
+    termsByArticle.put(article.getId(), weights.keySet());
+  }
+
+  // callers hold the write lock
+  private void remove(long id) {
+    Set<String> terms = termsByArticle.remove(id);
+    if (terms == null) {
+      return;
+    }
+    for (String term : terms) {
+      Map<Long, Integer> posting = postings.get(term);
+      posting.remove(id);
+      if (posting.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+    articles.remove(id);
+  }
+}
@@ -5,10 +5,10 @@ import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,26 +19,41 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 
+// The User row for an OAuth2 login is looked up (or created) on the first call in
+// a session and then kept in the session, so later calls, /api/currentUser in
+// particular, need no database access. The cached copy is checked against the
+// admin flag cached by UserRepository.findAdminByEmail, which save evicts, and is
+// re-resolved if it belongs to a different email, its admin flag no longer
+// matches the row (so a promotion or demotion takes effect at once), or
+// app.admin.emails says it should be an admin and it is not yet one.
+
 @Slf4j
 @Service("currentUser")
 public class CurrentUserServiceImpl extends CurrentUserService {
+  static final String SESSION_USER = CurrentUserServiceImpl.class.getName() + ".USER";
+
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  UserProvisioningService userProvisioning;
+
   @Autowired
   GrantedAuthoritiesService grantedAuthoritiesService;
 
   @Value("${app.admin.emails}")
-  final private List<String> adminEmails = new ArrayList<String>();
+  final private Set<String> adminEmails = new HashSet<String>();
 
   public CurrentUser getCurrentUser() {
     CurrentUser cu = CurrentUser.builder()
       .user(this.getUser())
       .roles(this.getRoles())
       .build();
-    log.info("getCurrentUser returns {}",cu);
+    log.debug("getCurrentUser returns {}",cu);
     return cu;
   }
 
@@ -46,6 +61,12 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   public User getOAuth2AuthenticatedUser(SecurityContext securityContext, Authentication authentication) {
     OAuth2User oAuthUser = ((OAuth2AuthenticationToken) authentication).getPrincipal();
     String email = oAuthUser.getAttribute("email");
+
+    User cached = sessionUser(email);
+    if (cached != null && isCurrent(cached)) {
+      return cached;
+    }
+
     String googleSub = oAuthUser.getAttribute("sub");
     String pictureUrl = oAuthUser.getAttribute("picture");
     String fullName = oAuthUser.getAttribute("name");
@@ -56,19 +77,9 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String hostedDomain = oAuthUser.getAttribute("hd");
 
     java.util.Map<java.lang.String,java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}",attrs);
-
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
-    }
+    log.debug("attrs={}",attrs);
 
-    User u = User.builder()
+    User u = userProvisioning.findOrCreate(User.builder()
         .googleSub(googleSub)
         .email(email)
         .pictureUrl(pictureUrl)
@@ -79,11 +90,41 @@ public class CurrentUserServiceImpl extends CurrentUserService {
         .locale(locale)
         .hostedDomain(hostedDomain)
         .admin(adminEmails.contains(email))
-        .build();
-    userRepository.save(u);
+        .build());
+    if (adminEmails.contains(email) && !u.getAdmin()) {
+      u.setAdmin(true);
+      userRepository.save(u);
+    }
+    rememberSessionUser(u);
     return u;
   }
 
+  private boolean isCurrent(User cached) {
+    Optional<Boolean> admin = userRepository.findAdminByEmail(cached.getEmail());
+    return admin.isPresent()
+        && admin.get() == cached.getAdmin()
+        && (admin.get() || !adminEmails.contains(cached.getEmail()));
+  }
+
+  private User sessionUser(String email) {
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request == null) {
+      return null;
+    }
+    Object user = request.getAttribute(SESSION_USER, RequestAttributes.SCOPE_SESSION);
+    if (user instanceof User sessionUser && sessionUser.getEmail().equals(email)) {
+      return sessionUser;
+    }
+    return null;
+  }
+
+  private void rememberSessionUser(User user) {
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request != null) {
+      request.setAttribute(SESSION_USER, user, RequestAttributes.SCOPE_SESSION);
+    }
+  }
+
   public User getUser() {
     SecurityContext securityContext = SecurityContextHolder.getContext();
     Authentication authentication = securityContext.getAuthentication();
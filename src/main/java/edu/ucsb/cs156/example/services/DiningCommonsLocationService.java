@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps the location of every dining commons in memory so that nearest-commons
+// lookups never touch the database. There are only a handful of commons, so a
+// full scan with a bounded heap beats building a k-d tree or geohash grid.
+//
+// The table is read once, on the first lookup; after that the controller
+// reports every write here. Writes and the initial load share one lock so that a
+// write committed while the table is being read can never be overwritten by the
+// older row from that read.
+
+@Slf4j
+@Service("diningCommonsLocations")
+public class DiningCommonsLocationService {
+
+  static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+  private static final Comparator<NearbyCommons> BY_DISTANCE =
+      Comparator.comparingDouble(NearbyCommons::getDistanceMeters);
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private final Map<String, UCSBDiningCommons> byCode = new ConcurrentHashMap<>();
+
+  private volatile boolean loaded = false;
+
+  public List<NearbyCommons> nearest(double latitude, double longitude, int k) {
+    ensureLoaded();
+    // k comes straight from the request; never size the heap beyond the table
+    int limit = Math.min(k, byCode.size());
+    if (limit < 1) {
+      return List.of();
+    }
+
+    // max-heap on distance holding the limit closest seen so far
+    PriorityQueue<NearbyCommons> closest = new PriorityQueue<>(limit + 1, BY_DISTANCE.reversed());
+    for (UCSBDiningCommons commons : byCode.values()) {
+      if (commons.getLatitude() == null || commons.getLongitude() == null) {
+        continue;
+      }
+      double distance = distanceMeters(latitude, longitude, commons.getLatitude(), commons.getLongitude());
+      closest.offer(new NearbyCommons(commons, distance));
+      if (closest.size() > limit) {
+        closest.poll();
+      }
+    }
+
+    List<NearbyCommons> result = new ArrayList<>(closest);
+    result.sort(BY_DISTANCE);
+    return result;
+  }
+
+  public synchronized void saved(UCSBDiningCommons commons) {
+    if (loaded) {
+      byCode.put(commons.getCode(), commons);
+    }
+  }
+
+  public synchronized void deleted(Collection<String> codes) {
+    if (loaded) {
+      byCode.keySet().removeAll(codes);
+    }
+  }
+
+  // Two threads may both see loaded == false and read the table twice; that is
+  // harmless, since each read happens under the lock and reflects every committed write.
+  private void ensureLoaded() {
+    if (!loaded) {
+      load();
+    }
+  }
+
+  private synchronized void load() {
+    for (UCSBDiningCommons commons : ucsbDiningCommonsRepository.findAll()) {
+      byCode.put(commons.getCode(), commons);
+    }
+    loaded = true;
+    log.info("Loaded {} dining commons locations", byCode.size());
+  }
+
+  static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+        + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+  }
+}
@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Pushes help request changes to every open /api/HelpRequest/events connection.
+//
+// publish never blocks on a client. Each subscriber has its own bounded buffer,
+// drained on a pool thread by at most one task at a time. A subscriber whose
+// buffer fills up has fallen too far behind, so its stream is closed rather than
+// holding events for it; the browser's EventSource reconnects and reloads.
+
+@Slf4j
+@Service("helpRequestEvents")
+public class HelpRequestEventService {
+
+  static final int BUFFER_SIZE = 64;
+  static final long TIMEOUT_MILLIS = Duration.ofMinutes(30).toMillis();
+
+  Supplier<SseEmitter> emitters = () -> new SseEmitter(TIMEOUT_MILLIS);
+  Executor executor = Executors.newCachedThreadPool(daemonThreads());
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  public SseEmitter subscribe() {
+    SseEmitter emitter = emitters.get();
+    Subscriber subscriber = new Subscriber(emitter);
+    Runnable unsubscribe = () -> subscribers.remove(subscriber);
+    emitter.onCompletion(unsubscribe);
+    emitter.onTimeout(unsubscribe);
+    emitter.onError(e -> unsubscribe.run());
+    subscribers.add(subscriber);
+    return emitter;
+  }
+
+  public void publish(String name, Object data) {
+    HelpRequestEvent event = new HelpRequestEvent(name, data);
+    for (Subscriber subscriber : subscribers) {
+      subscriber.offer(event);
+    }
+  }
+
+  int subscriberCount() {
+    return subscribers.size();
+  }
+
+  private static ThreadFactory daemonThreads() {
+    CustomizableThreadFactory threads = new CustomizableThreadFactory("help-request-events-");
+    threads.setDaemon(true);
+    return threads;
+  }
+
+  private class Subscriber {
+    private final SseEmitter emitter;
+    private final BlockingQueue<HelpRequestEvent> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+    // number of buffered events not yet sent; the thread that raises it from
+    // zero starts the drain, and the drain runs until it is back at zero
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    void offer(HelpRequestEvent event) {
+      if (!buffer.offer(event)) {
+        close("fell more than %d events behind".formatted(BUFFER_SIZE));
+        return;
+      }
+      if (pending.getAndIncrement() == 0) {
+        executor.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      do {
+        HelpRequestEvent event = buffer.poll();
+        if (!closed) {
+          send(event);
+        }
+      } while (pending.decrementAndGet() != 0);
+    }
+
+    private void send(HelpRequestEvent event) {
+      try {
+        emitter.send(SseEmitter.event().name(event.getName()).data(event.getData(), MediaType.APPLICATION_JSON));
+      } catch (IOException | IllegalStateException e) {
+        close(e.toString());
+      }
+    }
+
+    private void close(String reason) {
+      log.info("Closing help request event stream: {}", reason);
+      closed = true;
+      subscribers.remove(this);
+      emitter.complete();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Keeps the menuitemrating rollup in step with menuitemreview. Each method joins
+// the caller's transaction, so a review write and its rollup change commit or
+// roll back together. Rows are changed in itemId order, so two transactions
+// that touch the same items lock them in the same order and cannot deadlock.
+
+@Service("menuItemRatings")
+public class MenuItemRatingService {
+
+  @Autowired
+  MenuItemRatingRepository menuItemRatingRepository;
+
+  public MenuItemRating statsFor(long itemId) {
+    return menuItemRatingRepository.findById(itemId)
+        .orElse(MenuItemRating.builder().itemId(itemId).build());
+  }
+
+  @Transactional
+  public void reviewAdded(MenuItemReview review) {
+    apply(deltas(List.of(review), 1));
+  }
+
+  @Transactional
+  public void reviewChanged(MenuItemReview before, MenuItemReview after) {
+    Map<Long, MenuItemRating> deltas = deltas(List.of(before), -1);
+    accumulate(deltas, after, 1);
+    apply(deltas);
+  }
+
+  @Transactional
+  public void reviewsRemoved(Collection<MenuItemReview> reviews) {
+    apply(deltas(reviews, -1));
+  }
+
+  private static Map<Long, MenuItemRating> deltas(Collection<MenuItemReview> reviews, int sign) {
+    Map<Long, MenuItemRating> deltas = new TreeMap<>();
+    for (MenuItemReview review : reviews) {
+      accumulate(deltas, review, sign);
+    }
+    return deltas;
+  }
+
+  private static void accumulate(Map<Long, MenuItemRating> deltas, MenuItemReview review, int sign) {
+    deltas.computeIfAbsent(review.getItemID(), itemId -> MenuItemRating.builder().itemId(itemId).build())
+        .add(review.getStars(), sign);
+  }
+
+  // one upsert per item touched; deltas is a TreeMap, so in itemId order
+  private void apply(Map<Long, MenuItemRating> deltas) {
+    for (MenuItemRating delta : deltas.values()) {
+      menuItemRatingRepository.upsert(delta);
+    }
+  }
+}
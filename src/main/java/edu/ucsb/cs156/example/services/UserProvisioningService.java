@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+// Finds the users row for a login, creating it on the first one. USERS.EMAIL is
+// unique, so when several requests from the same new user arrive together
+// exactly one insert succeeds; the others fail on the constraint and read back
+// the row that won. No method here runs inside a transaction, so the failed
+// insert rolls back on its own and the read that follows starts clean, which
+// Postgres requires after an error.
+
+@Service("userProvisioning")
+public class UserProvisioningService {
+
+  @Autowired
+  UserRepository userRepository;
+
+  public User findOrCreate(User newUser) {
+    Optional<User> existing = userRepository.findByEmail(newUser.getEmail());
+    if (existing.isPresent()) {
+      return existing.get();
+    }
+    try {
+      return userRepository.save(newUser);
+    } catch (DataIntegrityViolationException e) {
+      return userRepository.findByEmail(newUser.getEmail()).orElseThrow(() -> e);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.NestedExceptionUtils;
+
+import edu.ucsb.cs156.example.loadtest.LoadTestTokens;
+
+// Loads LoadTestConfig with the application's own property files, so the
+// loadtest profile's settings are the ones that ship.
+
+class LoadTestConfigTests {
+
+  private final ApplicationContextRunner runner = new ApplicationContextRunner()
+      .withInitializer(new ConfigDataApplicationContextInitializer())
+      .withUserConfiguration(LoadTestConfig.class);
+
+  @Test
+  void loadtest_profile_does_not_start_without_a_secret() {
+    runner.withPropertyValues("spring.profiles.active=loadtest").run(context -> {
+      Throwable failure = context.getStartupFailure();
+      assertNotNull(failure);
+      assertTrue(NestedExceptionUtils.getMostSpecificCause(failure) instanceof IllegalArgumentException);
+    });
+  }
+
+  @Test
+  void loadtest_profile_starts_with_a_secret() {
+    runner.withPropertyValues("spring.profiles.active=loadtest", "app.loadtest.secret=s3cr3t").run(context -> {
+      LoadTestTokens tokens = context.getBean(LoadTestTokens.class);
+      assertEquals(200, tokens.users());
+      assertEquals(20, tokens.admins());
+    });
+  }
+
+  @Test
+  void loadtest_profile_is_ignored_in_production() {
+    runner.withPropertyValues("spring.profiles.active=loadtest,production").run(context -> {
+      assertFalse(context.containsBean("loadTestTokens"));
+    });
+  }
+}
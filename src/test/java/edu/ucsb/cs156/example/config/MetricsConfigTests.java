@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.web.servlet.WebMvcMetricsAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.controllers.SystemInfoController;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SystemInfoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Performs real requests through MockMvc with the Web MVC metrics filter in
+// place and reads back the http.server.requests timers it records. The
+// context, and so the registry, is shared by the tests here; each one uses a
+// role or route of its own so the counts do not depend on the order they run.
+
+@WebMvcTest(controllers = SystemInfoController.class)
+@ImportAutoConfiguration({ MetricsAutoConfiguration.class, WebMvcMetricsAutoConfiguration.class })
+@Import(MetricsConfigTests.Registry.class)
+class MetricsConfigTests extends ControllerTestCase {
+
+  @TestConfiguration
+  static class Registry {
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  SystemInfoService systemInfoService;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  private Timer timer(String uri, String role) {
+    return meterRegistry.get("http.server.requests").tag("uri", uri).tag("role", role).timer();
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  void admin_requests_are_tagged_admin() throws Exception {
+    mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk());
+
+    Timer timer = timer("/api/systemInfo", "admin");
+    assertEquals(1, timer.count());
+    assertEquals("SystemInfoController", timer.getId().getTag("controller"));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  void user_requests_are_tagged_user() throws Exception {
+    mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk());
+
+    Timer timer = timer("/api/systemInfo", "user");
+    assertEquals(2, timer.count());
+    assertEquals("SystemInfoController", timer.getId().getTag("controller"));
+  }
+
+  @Test
+  void anonymous_requests_are_tagged_anonymous() throws Exception {
+    mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk());
+
+    Timer timer = timer("/api/systemInfo", "anonymous");
+    assertEquals(1, timer.count());
+    assertEquals("SystemInfoController", timer.getId().getTag("controller"));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  void unmatched_routes_have_no_controller() throws Exception {
+    mockMvc.perform(get("/api/no/such/route")).andExpect(status().isNotFound());
+
+    Timer timer = meterRegistry.get("http.server.requests").tag("status", "404").timer();
+    assertEquals(1, timer.count());
+    assertEquals("none", timer.getId().getTag("controller"));
+    assertEquals("user", timer.getId().getTag("role"));
+  }
+}
@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.jdbc.DataSourcePoolMetricsAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Starts just the DataSource and metrics auto-configuration with
+// QueryCountConfig, to check that wrapping the DataSource for query counting
+// in development leaves the Hikari pool metrics (hikaricp_connections_* in
+// Prometheus) in place.
+
+class QueryCountConfigTests {
+
+  private final ApplicationContextRunner runner = new ApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(
+          DataSourceAutoConfiguration.class,
+          MetricsAutoConfiguration.class,
+          DataSourcePoolMetricsAutoConfiguration.class))
+      .withBean(SimpleMeterRegistry.class)
+      .withUserConfiguration(QueryCountConfig.class)
+      .withPropertyValues("spring.datasource.url=jdbc:h2:mem:querycountconfig;DB_CLOSE_DELAY=-1");
+
+  @Test
+  void development_data_source_counts_queries_and_keeps_the_pool_metrics() {
+    runner.withPropertyValues("spring.profiles.active=development").run(context -> {
+      DataSource dataSource = context.getBean(DataSource.class);
+      assertTrue(dataSource instanceof DelegatingDataSource);
+      assertTrue(dataSource.isWrapperFor(HikariDataSource.class));
+
+      try (Connection connection = dataSource.getConnection()) {
+        assertTrue(connection.isValid(1));
+      }
+
+      MeterRegistry registry = context.getBean(MeterRegistry.class);
+      assertNotNull(registry.find("hikaricp.connections").gauge());
+      assertNotNull(registry.find("hikaricp.connections.active").gauge());
+      assertNotNull(registry.find("jdbc.connections.max").gauge());
+    });
+  }
+
+  @Test
+  void other_profiles_leave_the_data_source_alone() {
+    runner.run(context -> {
+      assertFalse(context.containsBean("queryCountingDataSourcePostProcessor"));
+      assertTrue(context.getBean(DataSource.class) instanceof HikariDataSource);
+    });
+  }
+}
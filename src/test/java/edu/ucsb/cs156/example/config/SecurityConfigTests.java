@@ -0,0 +1,55 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.controllers.SystemInfoController;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SystemInfoService;
+
+// Checks the URL rules in SecurityConfig. The actuator endpoints themselves
+// are not part of this slice, so a request that gets past security ends in a
+// 404 rather than a 200.
+
+@WebMvcTest(controllers = SystemInfoController.class)
+class SecurityConfigTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  SystemInfoService systemInfoService;
+
+  @Test
+  void anonymous_requests_for_metrics_are_forbidden() throws Exception {
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/metrics/http.server.requests")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  void users_requests_for_metrics_are_forbidden() throws Exception {
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  void admins_get_past_security_for_metrics() throws Exception {
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isNotFound());
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void other_routes_are_still_open_to_anonymous_requests() throws Exception {
+    mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk());
+  }
+}
@@ -4,15 +4,21 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ArticleSearchService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -26,8 +32,10 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,6 +46,9 @@ public class ArticlesControllerTests extends ControllerTestCase {
     @MockBean
     ArticlesRepository articlesRepository;
 
+    @MockBean
+    ArticleSearchService articleSearch;
+
     @MockBean
     UserRepository userRepository;
 
@@ -84,7 +95,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
             ArrayList<Articles> expectedArticles = new ArrayList<>();
             expectedArticles.addAll(Arrays.asList(articles1, articles2));
 
-            when(articlesRepository.findAll()).thenReturn(expectedArticles);
+            when(articlesRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)))).thenReturn(expectedArticles);
 
             // act
             MvcResult response = mockMvc.perform(get("/api/Articles/all"))
@@ -92,10 +103,190 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
             // assert
 
-            verify(articlesRepository, times(1)).findAll();
+            verify(articlesRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
             String expectedJson = mapper.writeValueAsString(expectedArticles);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
+            assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_all_stops_at_the_limit_and_says_so() throws Exception {
+
+            // arrange
+            Articles article = Articles.builder()
+                            .id(1L)
+                            .title("testtitle")
+                            .url("testurl")
+                            .explanation("testexplanation")
+                            .email("testemail")
+                            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .build();
+
+            when(articlesRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1))))
+                            .thenReturn(Collections.nCopies(ApiController.ALL_LIMIT + 1, article));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/Articles/all"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            assertEquals("true", response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+            assertEquals(KeysetPage.encodeCursor("1"), response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+            String expectedJson = mapper.writeValueAsString(Collections.nCopies(ApiController.ALL_LIMIT, article));
+            assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_opt_in_to_the_whole_table() throws Exception {
+        ArrayList<Articles> everything = new ArrayList<>(Arrays.asList(Articles.builder().build()));
+        when(articlesRepository.findAll()).thenReturn(everything);
+
+        MvcResult response = mockMvc.perform(get("/api/Articles/all?unbounded=true"))
+                        .andExpect(status().isOk()).andReturn();
+
+        verify(articlesRepository, times(1)).findAll();
+        assertEquals(mapper.writeValueAsString(everything), response.getResponse().getContentAsString());
+        assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+    }
+
+    // Tests for GET /api/Articles/page
+
+    @Test
+    public void logged_out_users_cannot_get_page() throws Exception {
+            mockMvc.perform(get("/api/Articles/page"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_first_page_with_next_cursor() throws Exception {
+
+            // arrange
+            Articles articles1 = Articles.builder()
+                            .id(1L)
+                            .title("title1")
+                            .url("url1")
+                            .explanation("explanation1")
+                            .email("email1")
+                            .dateAdded(LocalDateTime.parse("2022-01-01T00:00:00"))
+                            .build();
+
+            Articles articles2 = Articles.builder()
+                            .id(2L)
+                            .title("title2")
+                            .url("url2")
+                            .explanation("explanation2")
+                            .email("email2")
+                            .dateAdded(LocalDateTime.parse("2022-01-02T00:00:00"))
+                            .build();
+
+            Articles articles3 = Articles.builder()
+                            .id(3L)
+                            .title("title3")
+                            .url("url3")
+                            .explanation("explanation3")
+                            .email("email3")
+                            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .build();
+
+            when(articlesRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                            .thenReturn(new ArrayList<>(Arrays.asList(articles1, articles2, articles3)));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/Articles/page?limit=2"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articlesRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+            KeysetPage<Articles> expectedPage = KeysetPage.<Articles>builder()
+                            .content(Arrays.asList(articles1, articles2))
+                            .nextCursor(KeysetPage.encodeCursor("2"))
+                            .build();
+            String expectedJson = mapper.writeValueAsString(expectedPage);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_last_page_without_next_cursor() throws Exception {
+
+            // arrange
+            Articles articles3 = Articles.builder()
+                            .id(3L)
+                            .title("title3")
+                            .url("url3")
+                            .explanation("explanation3")
+                            .email("email3")
+                            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .build();
+
+            when(articlesRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3))))
+                            .thenReturn(new ArrayList<>(Arrays.asList(articles3)));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/Articles/page?limit=2&after=" + KeysetPage.encodeCursor("2")))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articlesRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3)));
+            KeysetPage<Articles> expectedPage = KeysetPage.<Articles>builder()
+                            .content(Arrays.asList(articles3))
+                            .build();
+            String expectedJson = mapper.writeValueAsString(expectedPage);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    // Tests for GET /api/Articles/search?q=...
+
+    @Test
+    public void logged_out_users_cannot_search() throws Exception {
+            mockMvc.perform(get("/api/Articles/search?q=test"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_search_and_gets_ranked_hits() throws Exception {
+
+            // arrange
+            Articles articles1 = Articles.builder()
+                            .id(3L)
+                            .title("spring boot")
+                            .url("testurl")
+                            .explanation("testexplanation")
+                            .email("testemail")
+                            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .build();
+
+            List<ArticleSearchHit> hits = List.of(new ArticleSearchHit(articles1, 2.5));
+            when(articleSearch.search(eq("spring boot"), eq(20))).thenReturn(hits);
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/Articles/search").param("q", "spring boot"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articleSearch, times(1)).search("spring boot", 20);
+            String expectedJson = mapper.writeValueAsString(hits);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void search_limit_is_clamped() throws Exception {
+
+            when(articleSearch.search(eq("spring"), eq(KeysetPage.MAX_LIMIT))).thenReturn(List.of());
+
+            mockMvc.perform(get("/api/Articles/search?q=spring&limit=100000"))
+                            .andExpect(status().isOk());
+
+            verify(articleSearch, times(1)).search("spring", KeysetPage.MAX_LIMIT);
     }
 
     // Tests for POST /api/ucsbdates/post...
@@ -138,6 +329,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
             // assert
             verify(articlesRepository, times(1)).save(articles1);
+            verify(articleSearch, times(1)).index(articles1);
             String expectedJson = mapper.writeValueAsString(articles1);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
@@ -210,15 +402,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
             LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
 
-            Articles articles1 = Articles.builder()
-                                .title("testtitle")
-                                .url("testurl")
-                                .explanation("testexplanation")
-                                .email("testemail")
-                                .dateAdded(ldt1)
-                                .build();
-
-            when(articlesRepository.findById(eq(15L))).thenReturn(Optional.of(articles1));
+            when(articlesRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -227,8 +411,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
                             .andExpect(status().isOk()).andReturn();
 
             // assert
-            verify(articlesRepository, times(1)).findById(15L);
-            verify(articlesRepository, times(1)).delete(any());
+            verify(articlesRepository, times(1)).deleteByIdReturningCount(15L);
+            verify(articleSearch, times(1)).deleted(List.of(15L));
 
             Map<String, Object> json = responseToJson(response);
             assertEquals("Articles with id 15 deleted", json.get("message"));
@@ -240,7 +424,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                     throws Exception {
             // arrange
 
-            when(articlesRepository.findById(eq(15L))).thenReturn(Optional.empty());
+            when(articlesRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -249,11 +433,55 @@ public class ArticlesControllerTests extends ControllerTestCase {
                             .andExpect(status().isNotFound()).andReturn();
 
             // assert
-            verify(articlesRepository, times(1)).findById(15L);
+            verify(articlesRepository, times(1)).deleteByIdReturningCount(15L);
             Map<String, Object> json = responseToJson(response);
             assertEquals("Articles with id 15 not found", json.get("message"));
     }
 
+    // Tests for DELETE /api/Articles?ids=...
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+            mockMvc.perform(delete("/api/Articles?ids=1,2,3").with(csrf()))
+                            .andExpect(status().is(403)); // only admins can delete
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_delete_several_in_one_call() throws Exception {
+            // arrange
+
+            when(articlesRepository.deleteAllByIdIn(eq(Arrays.asList(1L, 2L, 3L)))).thenReturn(2);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            delete("/api/Articles?ids=1,2,3")
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articlesRepository, times(1)).deleteAllByIdIn(Arrays.asList(1L, 2L, 3L));
+            verify(articleSearch, times(1)).deleted(Arrays.asList(1L, 2L, 3L));
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("2 of 3 Articles deleted", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_bulk_delete_with_no_ids_does_not_touch_the_database() throws Exception {
+            // act
+            MvcResult response = mockMvc.perform(
+                            delete("/api/Articles?ids=")
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articlesRepository, never()).deleteAllByIdIn(any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("0 of 0 Articles deleted", json.get("message"));
+    }
+
     // Tests for PUT /api/Articles?id=... 
 
     @WithMockUser(roles = { "ADMIN", "USER" })
@@ -264,14 +492,6 @@ public class ArticlesControllerTests extends ControllerTestCase {
             LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
             LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-            Articles articles1 = Articles.builder()
-                                .title("testtitle")
-                                .url("testurl")
-                                .explanation("testexplanation")
-                                .email("testemail")
-                                .dateAdded(ldt1)
-                                .build();
-
             Articles articles2 = Articles.builder()
                                 .title("testtitle2")
                                 .url("testurl2")
@@ -281,8 +501,9 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .build();
 
             String requestBody = mapper.writeValueAsString(articles2);
+            articles2.setId(67L);
 
-            when(articlesRepository.findById(eq(67L))).thenReturn(Optional.of(articles1));
+            when(articlesRepository.update(eq(67L), eq(articles2))).thenReturn(1);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -294,10 +515,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
                             .andExpect(status().isOk()).andReturn();
 
             // assert
-            verify(articlesRepository, times(1)).findById(67L);
-            verify(articlesRepository, times(1)).save(articles2); // should be saved with correct user
+            verify(articlesRepository, times(1)).update(67L, articles2);
+            verify(articleSearch, times(1)).index(articles2);
             String responseString = response.getResponse().getContentAsString();
-            assertEquals(requestBody, responseString);
+            assertEquals(mapper.writeValueAsString(articles2), responseString);
     }
 
     
@@ -318,7 +539,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
             String requestBody = mapper.writeValueAsString(articles2);
 
-            when(articlesRepository.findById(eq(67L))).thenReturn(Optional.empty());
+            when(articlesRepository.update(eq(67L), any())).thenReturn(0);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -330,9 +551,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
                             .andExpect(status().isNotFound()).andReturn();
 
             // assert
-            verify(articlesRepository, times(1)).findById(67L);
+            verify(articlesRepository, times(1)).update(eq(67L), any());
             Map<String, Object> json = responseToJson(response);
             assertEquals("Articles with id 67 not found", json.get("message"));
+            verify(articleSearch, never()).index(any());
 
     }
     
@@ -4,18 +4,24 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.HelpRequestEventService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,10 +30,14 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,6 +49,9 @@ public class HelpRequestControllerTests extends ControllerTestCase {
         @MockBean
         HelpRequestRepository helpRequestRepository;
 
+        @MockBean
+        HelpRequestEventService helpRequestEvents;
+
         @MockBean
         UserRepository userRepository;
 
@@ -87,7 +100,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 ArrayList<HelpRequest> expectedRequests = new ArrayList<>();
                 expectedRequests.addAll(Arrays.asList(helpRequest1, helpRequest2));
 
-                when(helpRequestRepository.findAll()).thenReturn(expectedRequests);
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)))).thenReturn(expectedRequests);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/HelpRequest/all"))
@@ -95,12 +108,305 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(helpRequestRepository, times(1)).findAll();
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
                 String expectedJson = mapper.writeValueAsString(expectedRequests);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_opt_in_to_the_whole_table() throws Exception {
+                ArrayList<HelpRequest> everything = new ArrayList<>(Arrays.asList(HelpRequest.builder().build()));
+                when(helpRequestRepository.findAll()).thenReturn(everything);
+
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/all?unbounded=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(helpRequestRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(everything), response.getResponse().getContentAsString());
+                assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+        }
+
+        // Tests for GET /api/HelpRequest/page
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+                HelpRequest helpRequest1 = HelpRequest.builder()
+                                .id(1L)
+                                .requesterEmail("student1@ucsb.edu")
+                                .teamId("s24-5pm-1")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(LocalDateTime.parse("2022-01-01T00:00:00"))
+                                .explanation("Need help 1")
+                                .solved(false)
+                                .build();
+
+                HelpRequest helpRequest2 = HelpRequest.builder()
+                                .id(2L)
+                                .requesterEmail("student2@ucsb.edu")
+                                .teamId("s24-5pm-2")
+                                .tableOrBreakoutRoom("2")
+                                .requestTime(LocalDateTime.parse("2022-01-02T00:00:00"))
+                                .explanation("Need help 2")
+                                .solved(false)
+                                .build();
+
+                HelpRequest helpRequest3 = HelpRequest.builder()
+                                .id(3L)
+                                .requesterEmail("student3@ucsb.edu")
+                                .teamId("s24-5pm-3")
+                                .tableOrBreakoutRoom("3")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help 3")
+                                .solved(false)
+                                .build();
+
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(helpRequest1, helpRequest2, helpRequest3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/page?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<HelpRequest> expectedPage = KeysetPage.<HelpRequest>builder()
+                                .content(Arrays.asList(helpRequest1, helpRequest2))
+                                .nextCursor(KeysetPage.encodeCursor("2"))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor() throws Exception {
+
+                // arrange
+                HelpRequest helpRequest3 = HelpRequest.builder()
+                                .id(3L)
+                                .requesterEmail("student3@ucsb.edu")
+                                .teamId("s24-5pm-3")
+                                .tableOrBreakoutRoom("3")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help 3")
+                                .solved(false)
+                                .build();
+
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(helpRequest3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/page?limit=2&after=" + KeysetPage.encodeCursor("2")))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3)));
+                KeysetPage<HelpRequest> expectedPage = KeysetPage.<HelpRequest>builder()
+                                .content(Arrays.asList(helpRequest3))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void page_limit_is_clamped_to_allowed_range() throws Exception {
+                // act
+                mockMvc.perform(get("/api/HelpRequest/page?limit=0"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/HelpRequest/page?limit=5000"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 2)));
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, KeysetPage.MAX_LIMIT + 1)));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void page_with_malformed_cursor_is_a_bad_request() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/page?after=***"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidCursorException", json.get("type"));
+                assertEquals("Invalid page cursor ***", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void page_with_non_numeric_cursor_is_a_bad_request() throws Exception {
+                // arrange
+                String cursor = KeysetPage.encodeCursor("abc");
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/page?after=" + cursor))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidCursorException", json.get("type"));
+                assertEquals("Invalid page cursor " + cursor, json.get("message"));
+        }
+
+        // Tests for GET /api/HelpRequest/queue
+
+        @Test
+        public void logged_out_users_cannot_get_queue() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/queue"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_open_requests_oldest_first_with_wait() throws Exception {
+
+                // arrange
+                LocalDateTime tenMinutesAgo = LocalDateTime.now().minusMinutes(10);
+
+                HelpRequest helpRequest1 = HelpRequest.builder()
+                                .id(4L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(tenMinutesAgo)
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                HelpRequest helpRequest2 = HelpRequest.builder()
+                                .id(2L)
+                                .requesterEmail("pdg@ucsb.edu")
+                                .teamId("s24-5pm-3")
+                                .tableOrBreakoutRoom("11")
+                                .requestTime(tenMinutesAgo.plusMinutes(5))
+                                .explanation("Dokku problems")
+                                .solved(false)
+                                .build();
+
+                List<HelpRequest> open = Arrays.asList(helpRequest1, helpRequest2);
+
+                when(helpRequestRepository.findBySolvedFalseOrderByRequestTimeAscIdAsc(eq(PageRequest.of(0, 2)))).thenReturn(open);
+                when(helpRequestRepository.countBySolvedFalse()).thenReturn(7L);
+                when(helpRequestRepository.findOldestOpenRequestTime()).thenReturn(tenMinutesAgo);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/queue?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findBySolvedFalseOrderByRequestTimeAscIdAsc(PageRequest.of(0, 2));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(7, json.get("length"));
+                long oldestWaitSeconds = ((Number) json.get("oldestWaitSeconds")).longValue();
+                assertTrue(oldestWaitSeconds >= 600 && oldestWaitSeconds < 660, "oldestWaitSeconds=" + oldestWaitSeconds);
+                assertEquals(mapper.writeValueAsString(open), mapper.writeValueAsString(json.get("requests")));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void empty_queue_has_no_oldest_wait() throws Exception {
+
+                // arrange
+                when(helpRequestRepository.findBySolvedFalseOrderByRequestTimeAscIdAsc(eq(PageRequest.of(0, 100)))).thenReturn(List.of());
+                when(helpRequestRepository.countBySolvedFalse()).thenReturn(0L);
+                when(helpRequestRepository.findOldestOpenRequestTime()).thenReturn(null);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/queue"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findBySolvedFalseOrderByRequestTimeAscIdAsc(PageRequest.of(0, 100));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(0, json.get("length"));
+                assertEquals(null, json.get("oldestWaitSeconds"));
+                assertEquals(List.of(), json.get("requests"));
+        }
+
+        // Tests for GET /api/HelpRequest/stream
+
+        @Test
+        public void logged_out_users_cannot_stream() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/stream"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_helprequests() throws Exception {
+
+                // arrange
+                HelpRequest helpRequest1 = HelpRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                HelpRequest helpRequest2 = HelpRequest.builder()
+                                .id(2L)
+                                .requesterEmail("pdg@ucsb.edu")
+                                .teamId("s24-5pm-3")
+                                .tableOrBreakoutRoom("11")
+                                .requestTime(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                .explanation("Dokku problems")
+                                .solved(true)
+                                .build();
+
+                when(helpRequestRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(helpRequest1, helpRequest2));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/stream"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).streamAllByOrderByIdAsc();
+                verify(helpRequestRepository, times(1)).detach(helpRequest1);
+                verify(helpRequestRepository, times(1)).detach(helpRequest2);
+                String expectedJson = mapper.writeValueAsString(Arrays.asList(helpRequest1, helpRequest2));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/HelpRequest/events
+
+        @Test
+        public void logged_out_users_cannot_subscribe_to_events() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/events"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_subscribe_to_events() throws Exception {
+                when(helpRequestEvents.subscribe()).thenReturn(new SseEmitter());
+
+                mockMvc.perform(get("/api/HelpRequest/events").accept(MediaType.TEXT_EVENT_STREAM))
+                                .andExpect(status().isOk())
+                                .andExpect(request().asyncStarted());
+
+                verify(helpRequestEvents, times(1)).subscribe();
+        }
+
         // Tests for POST /api/HelpRequest/post...
 
         @Test
@@ -142,11 +448,212 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(helpRequestRepository, times(1)).save(helpRequest1);
+                verify(helpRequestEvents, times(1)).publish(HelpRequestEvent.CREATED, helpRequest1);
                 String expectedJson = mapper.writeValueAsString(helpRequest1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        // Tests for POST /api/HelpRequest/bulk
+
+        @Test
+        public void logged_out_users_cannot_post_bulk() throws Exception {
+                mockMvc.perform(post("/api/HelpRequest/bulk"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+                mockMvc.perform(post("/api/HelpRequest/bulk").with(csrf()))
+                                .andExpect(status().is(403)); // only admins can post
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_can_post_many_helprequests_at_once() throws Exception {
+                // arrange
+
+                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+                LocalDateTime ldt2 = LocalDateTime.parse("2022-01-03T00:05:00");
+
+                HelpRequest incoming1 = HelpRequest.builder()
+                                .id(7L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(ldt1)
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                HelpRequest incoming2 = HelpRequest.builder()
+                                .id(8L)
+                                .requesterEmail("ldelplaya@ucsb.edu")
+                                .teamId("s24-4pm-4")
+                                .tableOrBreakoutRoom("2")
+                                .requestTime(ldt2)
+                                .explanation("Dokku deployment fails")
+                                .solved(false)
+                                .build();
+
+                // ids supplied by the client are ignored; the sequence assigns them
+                HelpRequest unsaved1 = HelpRequest.builder()
+                                .id(0L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(ldt1)
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                HelpRequest unsaved2 = HelpRequest.builder()
+                                .id(0L)
+                                .requesterEmail("ldelplaya@ucsb.edu")
+                                .teamId("s24-4pm-4")
+                                .tableOrBreakoutRoom("2")
+                                .requestTime(ldt2)
+                                .explanation("Dokku deployment fails")
+                                .solved(false)
+                                .build();
+
+                HelpRequest saved1 = HelpRequest.builder()
+                                .id(51L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(ldt1)
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                HelpRequest saved2 = HelpRequest.builder()
+                                .id(52L)
+                                .requesterEmail("ldelplaya@ucsb.edu")
+                                .teamId("s24-4pm-4")
+                                .tableOrBreakoutRoom("2")
+                                .requestTime(ldt2)
+                                .explanation("Dokku deployment fails")
+                                .solved(false)
+                                .build();
+
+                ArrayList<HelpRequest> expectedUnsaved = new ArrayList<>(Arrays.asList(unsaved1, unsaved2));
+                ArrayList<HelpRequest> expectedSaved = new ArrayList<>(Arrays.asList(saved1, saved2));
+
+                when(helpRequestRepository.saveAll(eq(expectedUnsaved))).thenReturn(expectedSaved);
+
+                String requestBody = mapper.writeValueAsString(Arrays.asList(incoming1, incoming2));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/HelpRequest/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).saveAll(expectedUnsaved);
+                verify(helpRequestEvents, times(1)).publish(HelpRequestEvent.CREATED, saved1);
+                verify(helpRequestEvents, times(1)).publish(HelpRequestEvent.CREATED, saved2);
+                String expectedJson = mapper.writeValueAsString(expectedSaved);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for POST /api/HelpRequest/claim
+
+        @Test
+        public void logged_out_users_cannot_claim() throws Exception {
+                mockMvc.perform(post("/api/HelpRequest/claim"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_claim() throws Exception {
+                mockMvc.perform(post("/api/HelpRequest/claim").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_claims_the_oldest_request_nobody_else_got() throws Exception {
+                // arrange
+
+                HelpRequest oldest = HelpRequest.builder()
+                                .id(3L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                HelpRequest next = HelpRequest.builder()
+                                .id(5L)
+                                .requesterEmail("pdg@ucsb.edu")
+                                .teamId("s24-5pm-3")
+                                .tableOrBreakoutRoom("11")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:05:00"))
+                                .explanation("Dokku problems")
+                                .solved(false)
+                                .build();
+
+                when(helpRequestRepository.findBySolvedFalseAndClaimedByIsNullOrderByRequestTimeAscIdAsc(eq(PageRequest.of(0, HelpRequestController.CLAIM_CANDIDATES))))
+                                .thenReturn(Arrays.asList(oldest, next));
+                // another TA claimed the oldest one between our read and our update
+                when(helpRequestRepository.claim(eq(3L), eq("user@example.org"), any())).thenReturn(0);
+                when(helpRequestRepository.claim(eq(5L), eq("user@example.org"), any())).thenReturn(1);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/HelpRequest/claim")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).claim(eq(3L), eq("user@example.org"), any());
+                verify(helpRequestRepository, times(1)).claim(eq(5L), eq("user@example.org"), any());
+                assertEquals("user@example.org", next.getClaimedBy());
+                verify(helpRequestEvents, times(1)).publish(HelpRequestEvent.UPDATED, next);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(next), responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_claim_with_nothing_left_gets_a_message() throws Exception {
+                // arrange
+
+                HelpRequest contested = HelpRequest.builder()
+                                .id(3L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .solved(false)
+                                .build();
+
+                when(helpRequestRepository.findBySolvedFalseAndClaimedByIsNullOrderByRequestTimeAscIdAsc(any()))
+                                .thenReturn(List.of(contested))
+                                .thenReturn(List.of());
+                when(helpRequestRepository.claim(eq(3L), any(), any())).thenReturn(0);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/HelpRequest/claim")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(2)).findBySolvedFalseAndClaimedByIsNullOrderByRequestTimeAscIdAsc(any());
+                verify(helpRequestEvents, never()).publish(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("No unclaimed HelpRequests", json.get("message"));
+        }
+
         // Tests for GET /api/HelpRequest?id=...
 
         @Test
@@ -215,16 +722,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
 
-                HelpRequest helpRequest1 = HelpRequest.builder()
-                                .requesterEmail("cgaucho@ucsb.edu")
-                                .teamId("s24-4pm-3")
-                                .tableOrBreakoutRoom("1")
-                                .requestTime(ldt1)
-                                .explanation("Need help with Swagger-ui")
-                                .solved(false)
-                                .build();
-
-                when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.of(helpRequest1));
+                when(helpRequestRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -233,8 +731,8 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(15L);
-                verify(helpRequestRepository, times(1)).delete(any());
+                verify(helpRequestRepository, times(1)).deleteByIdReturningCount(15L);
+                verify(helpRequestEvents, times(1)).publish(HelpRequestEvent.DELETED, List.of(15L));
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 deleted", json.get("message"));
@@ -246,7 +744,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(helpRequestRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -255,9 +753,97 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(15L);
+                verify(helpRequestRepository, times(1)).deleteByIdReturningCount(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 not found", json.get("message"));
+                verify(helpRequestEvents, never()).publish(any(), any());
+        }
+
+        // Tests for DELETE /api/HelpRequest?ids=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/HelpRequest?ids=1,2,3").with(csrf()))
+                                .andExpect(status().is(403)); // only admins can delete
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_several_in_one_call() throws Exception {
+                // arrange
+
+                when(helpRequestRepository.findIdsByIdIn(eq(Arrays.asList(1L, 2L, 3L)))).thenReturn(Arrays.asList(1L, 3L));
+                when(helpRequestRepository.deleteAllByIdIn(eq(Arrays.asList(1L, 3L)))).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/HelpRequest?ids=1,2,3")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).deleteAllByIdIn(Arrays.asList(1L, 3L));
+                verify(helpRequestEvents, times(1)).publish(HelpRequestEvent.DELETED, Arrays.asList(1L, 3L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("2 of 3 HelpRequests deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_of_ids_that_do_not_exist_publishes_nothing() throws Exception {
+                // arrange
+
+                when(helpRequestRepository.findIdsByIdIn(eq(Arrays.asList(7L, 8L)))).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/HelpRequest?ids=7,8")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, never()).deleteAllByIdIn(any());
+                verify(helpRequestEvents, never()).publish(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 of 2 HelpRequests deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_that_loses_every_row_to_another_delete_publishes_nothing() throws Exception {
+                // arrange
+
+                when(helpRequestRepository.findIdsByIdIn(eq(Arrays.asList(7L, 8L)))).thenReturn(Arrays.asList(7L, 8L));
+                when(helpRequestRepository.deleteAllByIdIn(eq(Arrays.asList(7L, 8L)))).thenReturn(0);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/HelpRequest?ids=7,8")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestEvents, never()).publish(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 of 2 HelpRequests deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_with_no_ids_does_not_touch_the_database() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/HelpRequest?ids=")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, never()).findIdsByIdIn(any());
+                verify(helpRequestRepository, never()).deleteAllByIdIn(any());
+                verify(helpRequestEvents, never()).publish(any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 of 0 HelpRequests deleted", json.get("message"));
         }
 
         // Tests for PUT /api/ucsbdates?id=... 
@@ -270,15 +856,6 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-                HelpRequest helpRequestOrig = HelpRequest.builder()
-                                .requesterEmail("cgaucho@ucsb.edu")
-                                .teamId("s24-4pm-3")
-                                .tableOrBreakoutRoom("1")
-                                .requestTime(ldt1)
-                                .explanation("Need help with Swagger-ui")
-                                .solved(false)
-                                .build();
-
                 HelpRequest helpRequestEdited = HelpRequest.builder()
                                 .requesterEmail("cgauchooo@ucsb.edu")
                                 .teamId("s24-5pm-3")
@@ -289,8 +866,10 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .build();
 
                 String requestBody = mapper.writeValueAsString(helpRequestEdited);
+                helpRequestEdited.setId(67L);
 
-                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestOrig));
+                when(helpRequestRepository.update(eq(67L), eq(helpRequestEdited))).thenReturn(1);
+                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestEdited));
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -302,10 +881,90 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(67L);
-                verify(helpRequestRepository, times(1)).save(helpRequestEdited); // should be saved with correct user
+                verify(helpRequestRepository, times(1)).update(67L, helpRequestEdited);
+                verify(helpRequestEvents, times(1)).publish(HelpRequestEvent.UPDATED, helpRequestEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(helpRequestEdited), responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_edit_reports_the_stored_claim_not_the_one_in_the_body() throws Exception {
+                // arrange
+
+                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+                LocalDateTime claimedAt = LocalDateTime.parse("2022-01-03T00:05:00");
+
+                HelpRequest body = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(ldt1)
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .claimedBy("someone-else@ucsb.edu")
+                                .build();
+                HelpRequest stored = HelpRequest.builder()
+                                .id(67L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(ldt1)
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .claimedBy("ta@ucsb.edu")
+                                .claimedAt(claimedAt)
+                                .build();
+
+                when(helpRequestRepository.update(eq(67L), any())).thenReturn(1);
+                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(stored));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/HelpRequest?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(body))
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestEvents, times(1)).publish(HelpRequestEvent.UPDATED, stored);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("ta@ucsb.edu", json.get("claimedBy"));
+                assertEquals("2022-01-03T00:05:00", json.get("claimedAt"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_edit_of_a_row_deleted_right_after_the_update_is_not_found() throws Exception {
+                // arrange
+
+                HelpRequest body = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-4pm-3")
+                                .tableOrBreakoutRoom("1")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                when(helpRequestRepository.update(eq(67L), any())).thenReturn(1);
+                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/HelpRequest?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(body))
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("HelpRequest with id 67 not found", json.get("message"));
+                verify(helpRequestEvents, never()).publish(any(), any());
         }
 
         
@@ -327,7 +986,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(editedHelpRequest);
 
-                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(helpRequestRepository.update(eq(67L), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -339,9 +998,10 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(67L);
+                verify(helpRequestRepository, times(1)).update(eq(67L), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 67 not found", json.get("message"));
+                verify(helpRequestEvents, never()).publish(any(), any());
 
         }
         
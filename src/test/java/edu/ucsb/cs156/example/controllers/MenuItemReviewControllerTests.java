@@ -3,16 +3,23 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.MenuItemRating;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -24,10 +31,14 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,6 +50,9 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
         @MockBean
         MenuItemReviewRepository menuItemReviewRepository;
 
+        @MockBean
+        MenuItemRatingService menuItemRatings;
+
         @MockBean
         UserRepository userRepository;
 
@@ -85,7 +99,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 ArrayList<MenuItemReview> expectedDates = new ArrayList<>();
                 expectedDates.addAll(Arrays.asList(menuItemReview1, menuItemReview2));
 
-                when(menuItemReviewRepository.findAll()).thenReturn(expectedDates);
+                when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)))).thenReturn(expectedDates);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/MenuItemReview/all"))
@@ -93,12 +107,231 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(menuItemReviewRepository, times(1)).findAll();
+                verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
                 String expectedJson = mapper.writeValueAsString(expectedDates);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_opt_in_to_the_whole_table() throws Exception {
+                ArrayList<MenuItemReview> everything = new ArrayList<>(Arrays.asList(MenuItemReview.builder().build()));
+                when(menuItemReviewRepository.findAll()).thenReturn(everything);
+
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/all?unbounded=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(menuItemReviewRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(everything), response.getResponse().getContentAsString());
+                assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+        }
+
+        // Tests for GET /api/MenuItemReview/page
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+                MenuItemReview menuItemReview1 = MenuItemReview.builder()
+                                .id(1L)
+                                .itemID(1L)
+                                .reviewerEmail("reviewer1@ucsb.edu")
+                                .stars(1)
+                                .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+                                .comments("comments1")
+                                .build();
+
+                MenuItemReview menuItemReview2 = MenuItemReview.builder()
+                                .id(2L)
+                                .itemID(2L)
+                                .reviewerEmail("reviewer2@ucsb.edu")
+                                .stars(2)
+                                .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+                                .comments("comments2")
+                                .build();
+
+                MenuItemReview menuItemReview3 = MenuItemReview.builder()
+                                .id(3L)
+                                .itemID(3L)
+                                .reviewerEmail("reviewer3@ucsb.edu")
+                                .stars(3)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("comments3")
+                                .build();
+
+                when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(menuItemReview1, menuItemReview2, menuItemReview3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/page?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<MenuItemReview> expectedPage = KeysetPage.<MenuItemReview>builder()
+                                .content(Arrays.asList(menuItemReview1, menuItemReview2))
+                                .nextCursor(KeysetPage.encodeCursor("2"))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor() throws Exception {
+
+                // arrange
+                MenuItemReview menuItemReview3 = MenuItemReview.builder()
+                                .id(3L)
+                                .itemID(3L)
+                                .reviewerEmail("reviewer3@ucsb.edu")
+                                .stars(3)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("comments3")
+                                .build();
+
+                when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(menuItemReview3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/page?limit=2&after=" + KeysetPage.encodeCursor("2")))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3)));
+                KeysetPage<MenuItemReview> expectedPage = KeysetPage.<MenuItemReview>builder()
+                                .content(Arrays.asList(menuItemReview3))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/MenuItemReview/export
+
+        @Test
+        public void logged_out_users_cannot_export() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/export"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_export_all_reviews_as_ndjson() throws Exception {
+
+                // arrange
+                MenuItemReview review1 = MenuItemReview.builder()
+                                .id(1L)
+                                .itemID(27L)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(3)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("bland")
+                                .build();
+
+                MenuItemReview review2 = MenuItemReview.builder()
+                                .id(2L)
+                                .itemID(29L)
+                                .reviewerEmail("ldelplaya@ucsb.edu")
+                                .stars(5)
+                                .dateReviewed(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                .comments("great")
+                                .build();
+
+                when(menuItemReviewRepository.streamForExport(eq(0L), eq(MenuItemReviewController.EXPORT_START), eq(MenuItemReviewController.EXPORT_END)))
+                                .thenReturn(Stream.of(review1, review2));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/export"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).detach(review1);
+                verify(menuItemReviewRepository, times(1)).detach(review2);
+                String expected = mapper.writeValueAsString(review1) + "\n" + mapper.writeValueAsString(review2) + "\n";
+                assertEquals("application/x-ndjson", response.getResponse().getContentType());
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_resume_a_filtered_gzipped_export() throws Exception {
+
+                // arrange
+                LocalDateTime since = LocalDateTime.parse("2022-01-01T00:00:00");
+                LocalDateTime until = LocalDateTime.parse("2022-04-01T00:00:00");
+
+                MenuItemReview review2 = MenuItemReview.builder()
+                                .id(2L)
+                                .itemID(29L)
+                                .reviewerEmail("ldelplaya@ucsb.edu")
+                                .stars(5)
+                                .dateReviewed(LocalDateTime.parse("2022-03-11T00:00:00"))
+                                .comments("great")
+                                .build();
+
+                when(menuItemReviewRepository.streamForExport(eq(1L), eq(since), eq(until)))
+                                .thenReturn(Stream.of(review2));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/export?since=2022-01-01T00:00:00&until=2022-04-01T00:00:00&after=1&gzip=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals("gzip", response.getResponse().getHeader("Content-Encoding"));
+                GZIPInputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(response.getResponse().getContentAsByteArray()));
+                String body = new String(unzipped.readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(mapper.writeValueAsString(review2) + "\n", body);
+        }
+
+        // Tests for GET /api/MenuItemReview/stats
+
+        @Test
+        public void logged_out_users_cannot_get_stats() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/stats?itemId=5"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_stats_for_an_item() throws Exception {
+
+                // arrange
+
+                MenuItemRating rating = MenuItemRating.builder()
+                                .itemId(5L)
+                                .reviewCount(3)
+                                .starsTotal(11)
+                                .threeStars(1)
+                                .fourStars(1)
+                                .fiveStars(1)
+                                .build();
+
+                when(menuItemRatings.statsFor(eq(5L))).thenReturn(rating);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/stats?itemId=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(menuItemRatings, times(1)).statsFor(5L);
+                String expectedJson = mapper.writeValueAsString(rating);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(11.0 / 3, (Double) json.get("averageStars"), 1e-9);
+        }
+
         // Tests for POST /api/MenuItemReview/post...
 
         @Test
@@ -139,6 +372,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(menuItemReviewRepository, times(1)).save(menuItemReview1);
+                verify(menuItemRatings, times(1)).reviewAdded(menuItemReview1);
                 String expectedJson = mapper.writeValueAsString(menuItemReview1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -212,14 +446,16 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
 
                 MenuItemReview menuItemReview1 = MenuItemReview.builder()
+                                .id(15L)
                                 .itemID(5)
                                 .reviewerEmail("test@gmail.com")
-                                .stars(5)
+                                .stars(4)
                                 .dateReviewed(ldt1)
                                 .comments("good")
                                 .build();
 
-                when(menuItemReviewRepository.findById(eq(15L))).thenReturn(Optional.of(menuItemReview1));
+                when(menuItemReviewRepository.findForUpdateById(eq(15L))).thenReturn(Optional.of(menuItemReview1));
+                when(menuItemReviewRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -228,8 +464,9 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(menuItemReviewRepository, times(1)).findById(15L);
-                verify(menuItemReviewRepository, times(1)).delete(any());
+                verify(menuItemReviewRepository, times(1)).findForUpdateById(15L);
+                verify(menuItemReviewRepository, times(1)).deleteByIdReturningCount(15L);
+                verify(menuItemRatings, times(1)).reviewsRemoved(List.of(menuItemReview1));
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
@@ -241,7 +478,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(menuItemReviewRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(menuItemReviewRepository.findForUpdateById(eq(15L))).thenReturn(Optional.empty());
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -250,7 +487,9 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(menuItemReviewRepository, times(1)).findById(15L);
+                verify(menuItemReviewRepository, times(1)).findForUpdateById(15L);
+                verify(menuItemReviewRepository, never()).deleteByIdReturningCount(15L);
+                verify(menuItemRatings, never()).reviewsRemoved(any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 15 not found", json.get("message"));
         }
@@ -266,9 +505,10 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
                 MenuItemReview menuItemReviewOrig = MenuItemReview.builder()
-                                .itemID(0)
-                                .reviewerEmail("testing@gmail.com")
-                                .stars(0)
+                                .id(67L)
+                                .itemID(5)
+                                .reviewerEmail("test@gmail.com")
+                                .stars(2)
                                 .dateReviewed(ldt1)
                                 .comments("bad")
                                 .build();
@@ -282,8 +522,10 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .build();
 
                 String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
+                menuItemReviewEdited.setId(67L);
 
-                when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.of(menuItemReviewOrig));
+                when(menuItemReviewRepository.findForUpdateById(eq(67L))).thenReturn(Optional.of(menuItemReviewOrig));
+                when(menuItemReviewRepository.update(eq(67L), eq(menuItemReviewEdited))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -295,10 +537,10 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(menuItemReviewRepository, times(1)).findById(67L);
-                verify(menuItemReviewRepository, times(1)).save(menuItemReviewEdited); // should be saved with correct user
+                verify(menuItemReviewRepository, times(1)).update(67L, menuItemReviewEdited);
+                verify(menuItemRatings, times(1)).reviewChanged(menuItemReviewOrig, menuItemReviewEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(menuItemReviewEdited), responseString);
         }
 
         
@@ -319,7 +561,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(menuItemEditedReview);
 
-                when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(menuItemReviewRepository.findForUpdateById(eq(67L))).thenReturn(Optional.empty());
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -331,9 +573,60 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(menuItemReviewRepository, times(1)).findById(67L);
+                verify(menuItemReviewRepository, times(1)).findForUpdateById(67L);
+                verify(menuItemReviewRepository, never()).update(eq(67L), any());
+                verify(menuItemRatings, never()).reviewChanged(any(), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for DELETE /api/MenuItemReview?ids=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/MenuItemReview?ids=1,2,3").with(csrf()))
+                                .andExpect(status().is(403)); // only admins can delete
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_several_in_one_call() throws Exception {
+                // arrange
+
+                MenuItemReview review1 = MenuItemReview.builder().id(1L).itemID(5).stars(4).build();
+                MenuItemReview review3 = MenuItemReview.builder().id(3L).itemID(6).stars(1).build();
+
+                when(menuItemReviewRepository.findForUpdateByIdIn(eq(Arrays.asList(1L, 2L, 3L)))).thenReturn(Arrays.asList(review1, review3));
+                when(menuItemReviewRepository.deleteAllByIdIn(eq(Arrays.asList(1L, 2L, 3L)))).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/MenuItemReview?ids=1,2,3")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).deleteAllByIdIn(Arrays.asList(1L, 2L, 3L));
+                verify(menuItemRatings, times(1)).reviewsRemoved(Arrays.asList(review1, review3));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("2 of 3 MenuItemReviews deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_with_no_ids_does_not_touch_the_database() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/MenuItemReview?ids=")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, never()).deleteAllByIdIn(any());
+                verify(menuItemRatings, never()).reviewsRemoved(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 of 0 MenuItemReviews deleted", json.get("message"));
+        }
 }
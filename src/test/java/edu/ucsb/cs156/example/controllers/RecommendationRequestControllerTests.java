@@ -5,15 +5,19 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import liquibase.pro.packaged.R;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -22,13 +26,17 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -88,7 +96,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 ArrayList<RecommendationRequest> expectedRequests = new ArrayList<>();
                 expectedRequests.addAll(Arrays.asList(recommendationRequest1, recommendationRequest2));
 
-                when(recommendationRequestRepository.findAll()).thenReturn(expectedRequests);
+                when(recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)))).thenReturn(expectedRequests);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/all"))
@@ -96,12 +104,326 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(recommendationRequestRepository, times(1)).findAll();
+                verify(recommendationRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
                 String expectedJson = mapper.writeValueAsString(expectedRequests);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_opt_in_to_the_whole_table() throws Exception {
+                ArrayList<RecommendationRequest> everything = new ArrayList<>(Arrays.asList(RecommendationRequest.builder().build()));
+                when(recommendationRequestRepository.findAll()).thenReturn(everything);
+
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/all?unbounded=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(recommendationRequestRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(everything), response.getResponse().getContentAsString());
+                assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+        }
+
+        // Tests for GET /api/RecommendationRequest/page
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+                RecommendationRequest recommendationRequest1 = RecommendationRequest.builder()
+                                .id(1L)
+                                .requesterEmail("student1@ucsb.edu")
+                                .professorEmail("prof1@ucsb.edu")
+                                .explanation("explanation1")
+                                .dateRequested(LocalDateTime.parse("2022-01-01T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-01T00:00:00"))
+                                .done(false)
+                                .build();
+
+                RecommendationRequest recommendationRequest2 = RecommendationRequest.builder()
+                                .id(2L)
+                                .requesterEmail("student2@ucsb.edu")
+                                .professorEmail("prof2@ucsb.edu")
+                                .explanation("explanation2")
+                                .dateRequested(LocalDateTime.parse("2022-01-02T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-02T00:00:00"))
+                                .done(false)
+                                .build();
+
+                RecommendationRequest recommendationRequest3 = RecommendationRequest.builder()
+                                .id(3L)
+                                .requesterEmail("student3@ucsb.edu")
+                                .professorEmail("prof3@ucsb.edu")
+                                .explanation("explanation3")
+                                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-03T00:00:00"))
+                                .done(false)
+                                .build();
+
+                when(recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(recommendationRequest1, recommendationRequest2, recommendationRequest3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/page?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<RecommendationRequest> expectedPage = KeysetPage.<RecommendationRequest>builder()
+                                .content(Arrays.asList(recommendationRequest1, recommendationRequest2))
+                                .nextCursor(KeysetPage.encodeCursor("2"))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor() throws Exception {
+
+                // arrange
+                RecommendationRequest recommendationRequest3 = RecommendationRequest.builder()
+                                .id(3L)
+                                .requesterEmail("student3@ucsb.edu")
+                                .professorEmail("prof3@ucsb.edu")
+                                .explanation("explanation3")
+                                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-03T00:00:00"))
+                                .done(false)
+                                .build();
+
+                when(recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(recommendationRequest3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/page?limit=2&after=" + KeysetPage.encodeCursor("2")))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3)));
+                KeysetPage<RecommendationRequest> expectedPage = KeysetPage.<RecommendationRequest>builder()
+                                .content(Arrays.asList(recommendationRequest3))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/RecommendationRequest/mine
+
+        @Test
+        public void logged_out_users_cannot_get_mine() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/mine"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_of_own_requests() throws Exception {
+
+                // arrange
+                RecommendationRequest mine1 = RecommendationRequest.builder()
+                                .id(4L)
+                                .requesterEmail("user@example.org")
+                                .professorEmail("prof1@ucsb.edu")
+                                .explanation("explanation1")
+                                .dateRequested(LocalDateTime.parse("2022-01-01T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-01T00:00:00"))
+                                .done(false)
+                                .build();
+
+                RecommendationRequest mine2 = RecommendationRequest.builder()
+                                .id(9L)
+                                .requesterEmail("user@example.org")
+                                .professorEmail("prof2@ucsb.edu")
+                                .explanation("explanation2")
+                                .dateRequested(LocalDateTime.parse("2022-01-02T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-02T00:00:00"))
+                                .done(false)
+                                .build();
+
+                when(recommendationRequestRepository.findByRequesterEmailAndIdGreaterThanOrderByIdAsc(eq("user@example.org"), eq(0L), eq(PageRequest.of(0, 2))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(mine1, mine2)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/mine?limit=1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findByRequesterEmailAndIdGreaterThanOrderByIdAsc(eq("user@example.org"), eq(0L), eq(PageRequest.of(0, 2)));
+                KeysetPage<RecommendationRequest> expectedPage = KeysetPage.<RecommendationRequest>builder()
+                                .content(Arrays.asList(mine1))
+                                .nextCursor(KeysetPage.encodeCursor("4"))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_later_page_of_own_requests() throws Exception {
+
+                // arrange
+                when(recommendationRequestRepository.findByRequesterEmailAndIdGreaterThanOrderByIdAsc(eq("user@example.org"), eq(4L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/mine?after=" + KeysetPage.encodeCursor("4")))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findByRequesterEmailAndIdGreaterThanOrderByIdAsc(eq("user@example.org"), eq(4L), eq(PageRequest.of(0, 51)));
+                String expectedJson = mapper.writeValueAsString(KeysetPage.<RecommendationRequest>builder().content(List.of()).build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/RecommendationRequest/professor?professorEmail=...
+
+        @Test
+        public void logged_out_users_cannot_get_by_professor() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/professor?professorEmail=prof1@ucsb.edu"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_requests_addressed_to_professor() throws Exception {
+
+                // arrange
+                RecommendationRequest toProf = RecommendationRequest.builder()
+                                .id(3L)
+                                .requesterEmail("student3@ucsb.edu")
+                                .professorEmail("prof1@ucsb.edu")
+                                .explanation("explanation3")
+                                .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-03T00:00:00"))
+                                .done(false)
+                                .build();
+
+                when(recommendationRequestRepository.findByProfessorEmailAndIdGreaterThanOrderByIdAsc(eq("prof1@ucsb.edu"), eq(0L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(toProf)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/professor?professorEmail=prof1@ucsb.edu"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findByProfessorEmailAndIdGreaterThanOrderByIdAsc(eq("prof1@ucsb.edu"), eq(0L), eq(PageRequest.of(0, 51)));
+                String expectedJson = mapper.writeValueAsString(KeysetPage.<RecommendationRequest>builder().content(Arrays.asList(toProf)).build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_later_page_for_professor() throws Exception {
+
+                // arrange
+                when(recommendationRequestRepository.findByProfessorEmailAndIdGreaterThanOrderByIdAsc(eq("prof1@ucsb.edu"), eq(3L), eq(PageRequest.of(0, 11))))
+                                .thenReturn(new ArrayList<>());
+
+                // act
+                mockMvc.perform(get("/api/RecommendationRequest/professor?professorEmail=prof1@ucsb.edu&limit=10&after=" + KeysetPage.encodeCursor("3")))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findByProfessorEmailAndIdGreaterThanOrderByIdAsc(eq("prof1@ucsb.edu"), eq(3L), eq(PageRequest.of(0, 11)));
+        }
+
+        // Tests for GET /api/RecommendationRequest/dueSoon
+
+        @Test
+        public void logged_out_users_cannot_get_due_soon() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/dueSoon"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_due_within_days() throws Exception {
+
+                // arrange
+                RecommendationRequest dueFirst = RecommendationRequest.builder()
+                                .id(8L)
+                                .requesterEmail("student1@ucsb.edu")
+                                .professorEmail("prof1@ucsb.edu")
+                                .explanation("explanation1")
+                                .dateRequested(LocalDateTime.parse("2022-01-01T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-01T00:00:00"))
+                                .done(false)
+                                .build();
+
+                RecommendationRequest dueNext = RecommendationRequest.builder()
+                                .id(2L)
+                                .requesterEmail("student2@ucsb.edu")
+                                .professorEmail("prof2@ucsb.edu")
+                                .explanation("explanation2")
+                                .dateRequested(LocalDateTime.parse("2022-01-02T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2022-02-02T00:00:00"))
+                                .done(false)
+                                .build();
+
+                when(recommendationRequestRepository.findDueSoon(any(), eq(0L), any(), eq(PageRequest.of(0, 2))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(dueFirst, dueNext)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/dueSoon?days=3&limit=1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+                ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+                verify(recommendationRequestRepository, times(1)).findDueSoon(from.capture(), eq(0L), until.capture(), eq(PageRequest.of(0, 2)));
+                assertEquals(Duration.ofDays(3), Duration.between(from.getValue(), until.getValue()));
+                KeysetPage<RecommendationRequest> expectedPage = KeysetPage.<RecommendationRequest>builder()
+                                .content(Arrays.asList(dueFirst))
+                                .nextCursor(KeysetPage.encodeCursor("2022-02-01T00:00|8"))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_later_page_due_soon_from_cursor() throws Exception {
+
+                // arrange
+                when(recommendationRequestRepository.findDueSoon(eq(LocalDateTime.parse("2022-02-01T00:00:00")), eq(8L), any(), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>());
+
+                // act
+                mockMvc.perform(get("/api/RecommendationRequest/dueSoon?after=" + KeysetPage.encodeCursor("2022-02-01T00:00|8")))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findDueSoon(eq(LocalDateTime.parse("2022-02-01T00:00:00")), eq(8L), any(), eq(PageRequest.of(0, 51)));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void due_soon_with_malformed_cursor_is_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/dueSoon?after=" + KeysetPage.encodeCursor("8")))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, never()).findDueSoon(any(), anyLong(), any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidCursorException", json.get("type"));
+        }
+
         // Tests for POST /api/ucsbdates/post...
 
         @Test
@@ -238,15 +560,6 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 LocalDateTime ldt3 = LocalDateTime.parse("2022-01-04T00:00:00");
                 LocalDateTime ldt4 = LocalDateTime.parse("2023-01-04T00:00:00");
 
-                RecommendationRequest recommendationRequestOrig = RecommendationRequest.builder()
-                                .requesterEmail("tmcanepa@ucb.edu")
-                                .professorEmail("phtcon@ucsb.edu")
-                                .explanation("I need a recommendation for grad school")
-                                .dateRequested(ldt1)
-                                .dateNeeded(ldt2)
-                                .done(false)
-                                .build();
-
                 RecommendationRequest recommendationRequestEdited = RecommendationRequest.builder()
                                 .requesterEmail("tmcanepaa@ucb.edu")
                                 .professorEmail("philtcon@ucsb.edu")
@@ -257,8 +570,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .build(); 
 
                 String requestBody = mapper.writeValueAsString(recommendationRequestEdited);
+                recommendationRequestEdited.setId(67L);
 
-                when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.of(recommendationRequestOrig));
+                when(recommendationRequestRepository.update(eq(67L), eq(recommendationRequestEdited))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -270,10 +584,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(recommendationRequestRepository, times(1)).findById(67L);
-                verify(recommendationRequestRepository, times(1)).save(recommendationRequestEdited); // should be saved with correct user
+                verify(recommendationRequestRepository, times(1)).update(67L, recommendationRequestEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(recommendationRequestEdited), responseString);
         }
 
         
@@ -297,7 +610,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(recommendationRequestEdited);
 
-                when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(recommendationRequestRepository.update(eq(67L), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -309,7 +622,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(recommendationRequestRepository, times(1)).findById(67L);
+                verify(recommendationRequestRepository, times(1)).update(eq(67L), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
 
@@ -326,16 +639,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 LocalDateTime ldt2 = LocalDateTime.parse("2022-01-03T00:00:00");
 
 
-                RecommendationRequest recommendationRequestEdited = RecommendationRequest.builder()
-                                    .requesterEmail("tmcanepa@ucb.edu")
-                                    .professorEmail("phtcon@ucsb.edu")
-                                    .explanation("I need a recommendation for grad school")
-                                    .dateRequested(ldt1)
-                                    .dateNeeded(ldt2)
-                                    .done(false)
-                                    .build(); 
-
-                when(recommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.of(recommendationRequestEdited));
+                when(recommendationRequestRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -344,8 +648,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(recommendationRequestRepository, times(1)).findById(15L);
-                verify(recommendationRequestRepository, times(1)).delete(any());
+                verify(recommendationRequestRepository, times(1)).deleteByIdReturningCount(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 deleted", json.get("message"));
@@ -357,7 +660,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(recommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(recommendationRequestRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -366,10 +669,51 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(recommendationRequestRepository, times(1)).findById(15L);
+                verify(recommendationRequestRepository, times(1)).deleteByIdReturningCount(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
         }
 
+        // Tests for DELETE /api/RecommendationRequest?ids=...
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/RecommendationRequest?ids=1,2,3").with(csrf()))
+                                .andExpect(status().is(403)); // only admins can delete
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_several_in_one_call() throws Exception {
+                // arrange
+
+                when(recommendationRequestRepository.deleteAllByIdIn(eq(Arrays.asList(1L, 2L, 3L)))).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/RecommendationRequest?ids=1,2,3")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).deleteAllByIdIn(Arrays.asList(1L, 2L, 3L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("2 of 3 RecommendationRequests deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_with_no_ids_does_not_touch_the_database() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/RecommendationRequest?ids=")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, never()).deleteAllByIdIn(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 of 0 RecommendationRequests deleted", json.get("message"));
+        }
 }
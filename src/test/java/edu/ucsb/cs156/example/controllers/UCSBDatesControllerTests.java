@@ -4,6 +4,7 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import java.util.ArrayList;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -26,8 +28,11 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -81,7 +86,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 ArrayList<UCSBDate> expectedDates = new ArrayList<>();
                 expectedDates.addAll(Arrays.asList(ucsbDate1, ucsbDate2));
 
-                when(ucsbDateRepository.findAll()).thenReturn(expectedDates);
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)))).thenReturn(expectedDates);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsbdates/all"))
@@ -89,12 +94,279 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbDateRepository, times(1)).findAll();
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
                 String expectedJson = mapper.writeValueAsString(expectedDates);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_opt_in_to_the_whole_table() throws Exception {
+                ArrayList<UCSBDate> everything = new ArrayList<>(Arrays.asList(UCSBDate.builder().build()));
+                when(ucsbDateRepository.findAll()).thenReturn(everything);
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all?unbounded=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(ucsbDateRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(everything), response.getResponse().getContentAsString());
+                assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+        }
+
+        // Tests for GET /api/ucsbdates/page
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .id(1L)
+                                .quarterYYYYQ("20221")
+                                .name("date1")
+                                .localDateTime(LocalDateTime.parse("2022-01-01T00:00:00"))
+                                .build();
+
+                UCSBDate ucsbDate2 = UCSBDate.builder()
+                                .id(2L)
+                                .quarterYYYYQ("20222")
+                                .name("date2")
+                                .localDateTime(LocalDateTime.parse("2022-01-02T00:00:00"))
+                                .build();
+
+                UCSBDate ucsbDate3 = UCSBDate.builder()
+                                .id(3L)
+                                .quarterYYYYQ("20223")
+                                .name("date3")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(ucsbDate1, ucsbDate2, ucsbDate3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/page?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<UCSBDate> expectedPage = KeysetPage.<UCSBDate>builder()
+                                .content(Arrays.asList(ucsbDate1, ucsbDate2))
+                                .nextCursor(KeysetPage.encodeCursor("2"))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor() throws Exception {
+
+                // arrange
+                UCSBDate ucsbDate3 = UCSBDate.builder()
+                                .id(3L)
+                                .quarterYYYYQ("20223")
+                                .name("date3")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(ucsbDate3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/page?limit=2&after=" + KeysetPage.encodeCursor("2")))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3)));
+                KeysetPage<UCSBDate> expectedPage = KeysetPage.<UCSBDate>builder()
+                                .content(Arrays.asList(ucsbDate3))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/ucsbdates/quarter/{quarterYYYYQ}
+
+        @Test
+        public void logged_out_users_cannot_get_quarter() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/quarter/20222"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_dates_in_a_quarter() throws Exception {
+
+                // arrange
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .id(1L)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-03-28T00:00:00"))
+                                .build();
+
+                UCSBDate ucsbDate2 = UCSBDate.builder()
+                                .id(2L)
+                                .name("lastDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-06-03T00:00:00"))
+                                .build();
+
+                when(ucsbDateRepository.findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc(eq("20222")))
+                                .thenReturn(Arrays.asList(ucsbDate1, ucsbDate2));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter/20222"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc("20222");
+                String expectedJson = mapper.writeValueAsString(Arrays.asList(ucsbDate1, ucsbDate2));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/ucsbdates/range?from=...&to=...
+
+        @Test
+        public void logged_out_users_cannot_get_range() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_of_dates_in_a_range() throws Exception {
+
+                // arrange
+                LocalDateTime from = LocalDateTime.parse("2022-01-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2022-02-01T00:00:00");
+
+                UCSBDate ucsbDate1 = UCSBDate.builder()
+                                .id(7L)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20221")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                UCSBDate ucsbDate2 = UCSBDate.builder()
+                                .id(2L)
+                                .name("lastDayToAdd")
+                                .quarterYYYYQ("20221")
+                                .localDateTime(LocalDateTime.parse("2022-01-21T00:00:00"))
+                                .build();
+
+                when(ucsbDateRepository.findInRange(eq(from), eq(to), eq(from), eq(0L), eq(PageRequest.of(0, 2))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(ucsbDate1, ucsbDate2)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00&limit=1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findInRange(from, to, from, 0L, PageRequest.of(0, 2));
+                KeysetPage<UCSBDate> expectedPage = KeysetPage.<UCSBDate>builder()
+                                .content(Arrays.asList(ucsbDate1))
+                                .nextCursor(KeysetPage.encodeCursor("2022-01-03T00:00|7"))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_later_page_of_a_range_from_cursor() throws Exception {
+
+                // arrange
+                LocalDateTime from = LocalDateTime.parse("2022-01-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2022-02-01T00:00:00");
+                LocalDateTime afterDate = LocalDateTime.parse("2022-01-03T00:00:00");
+
+                when(ucsbDateRepository.findInRange(eq(from), eq(to), eq(afterDate), eq(7L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00&after="
+                                + KeysetPage.encodeCursor("2022-01-03T00:00|7")))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findInRange(from, to, afterDate, 7L, PageRequest.of(0, 51));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(new ArrayList<>(), json.get("content"));
+                assertNull(json.get("nextCursor"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void range_limit_is_clamped() throws Exception {
+
+                // arrange
+                when(ucsbDateRepository.findInRange(any(), any(), any(), eq(0L), eq(PageRequest.of(0, KeysetPage.MAX_LIMIT + 1))))
+                                .thenReturn(new ArrayList<>());
+
+                // act
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00&limit=1000000"))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findInRange(any(), any(), any(), eq(0L), eq(PageRequest.of(0, KeysetPage.MAX_LIMIT + 1)));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void range_with_cursor_without_a_separator_is_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00&after="
+                                + KeysetPage.encodeCursor("7")))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, never()).findInRange(any(), any(), any(), anyLong(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidCursorException", json.get("type"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void range_with_cursor_with_a_bad_date_is_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00&after="
+                                + KeysetPage.encodeCursor("yesterday|7")))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidCursorException", json.get("type"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void range_with_cursor_with_a_bad_id_is_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00&after="
+                                + KeysetPage.encodeCursor("2022-01-03T00:00|seven")))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidCursorException", json.get("type"));
+        }
+
         // Tests for POST /api/ucsbdates/post...
 
         @Test
@@ -203,13 +475,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
 
-                UCSBDate ucsbDate1 = UCSBDate.builder()
-                                .name("firstDayOfClasses")
-                                .quarterYYYYQ("20222")
-                                .localDateTime(ldt1)
-                                .build();
-
-                when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDate1));
+                when(ucsbDateRepository.deleteByIdReturningCount(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -218,8 +484,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(15L);
-                verify(ucsbDateRepository, times(1)).delete(any());
+                verify(ucsbDateRepository, times(1)).deleteByIdReturningCount(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -231,7 +496,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(ucsbDateRepository.deleteByIdReturningCount(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -240,11 +505,54 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(15L);
+                verify(ucsbDateRepository, times(1)).deleteByIdReturningCount(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 not found", json.get("message"));
         }
 
+        // Tests for DELETE /api/ucsbdates?ids=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/ucsbdates?ids=1,2,3").with(csrf()))
+                                .andExpect(status().is(403)); // only admins can delete
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_several_in_one_call() throws Exception {
+                // arrange
+
+                when(ucsbDateRepository.deleteAllByIdIn(eq(Arrays.asList(1L, 2L, 3L)))).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/ucsbdates?ids=1,2,3")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).deleteAllByIdIn(Arrays.asList(1L, 2L, 3L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("2 of 3 UCSBDates deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_with_no_ids_does_not_touch_the_database() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/ucsbdates?ids=")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, never()).deleteAllByIdIn(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 of 0 UCSBDates deleted", json.get("message"));
+        }
+
         // Tests for PUT /api/ucsbdates?id=... 
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -255,12 +563,6 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-                UCSBDate ucsbDateOrig = UCSBDate.builder()
-                                .name("firstDayOfClasses")
-                                .quarterYYYYQ("20222")
-                                .localDateTime(ldt1)
-                                .build();
-
                 UCSBDate ucsbDateEdited = UCSBDate.builder()
                                 .name("firstDayOfFestivus")
                                 .quarterYYYYQ("20232")
@@ -268,8 +570,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .build();
 
                 String requestBody = mapper.writeValueAsString(ucsbDateEdited);
+                ucsbDateEdited.setId(67L);
 
-                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+                when(ucsbDateRepository.update(eq(67L), eq(ucsbDateEdited))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -281,10 +584,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(67L);
-                verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+                verify(ucsbDateRepository, times(1)).update(67L, ucsbDateEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(ucsbDateEdited), responseString);
         }
 
         
@@ -303,7 +605,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedDate);
 
-                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(ucsbDateRepository.update(eq(67L), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -315,7 +617,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(67L);
+                verify(ucsbDateRepository, times(1)).update(eq(67L), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
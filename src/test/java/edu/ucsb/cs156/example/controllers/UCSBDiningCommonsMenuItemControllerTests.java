@@ -3,17 +3,24 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.MenuItemRating;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.RankedMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -27,8 +34,10 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -80,7 +89,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
             ArrayList<UCSBDiningCommonsMenuItems> expectedDates = new ArrayList<>();
             expectedDates.addAll(Arrays.asList(ucsbDiningCommonsMenuItems1, ucsbDiningCommonsMenuItems2));
 
-            when(ucsbDiningCommonsMenuItemsRepository.findAll()).thenReturn(expectedDates);
+            when(ucsbDiningCommonsMenuItemsRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)))).thenReturn(expectedDates);
 
             // act
             MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/all"))
@@ -88,7 +97,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
             // assert
 
-            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findAll();
+            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
             String expectedJson = mapper.writeValueAsString(expectedDates);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
@@ -97,6 +106,285 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
 
 
+    // Tests for GET /api/UCSBDiningCommonsMenuItem/byCommons
+
+    @Test
+    public void logged_out_users_cannot_get_by_commons() throws Exception {
+            mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/byCommons?diningCommonsCode=ortega"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_a_commons_menu_grouped_by_station() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItems bakedPesto = UCSBDiningCommonsMenuItems.builder()
+                            .id(1L)
+                            .diningCommonsCode("ortega")
+                            .name("Baked Pesto Pasta with Chicken")
+                            .station("Entree Specials")
+                            .build();
+
+            UCSBDiningCommonsMenuItems tofu = UCSBDiningCommonsMenuItems.builder()
+                            .id(2L)
+                            .diningCommonsCode("ortega")
+                            .name("Tofu Banh Mi Sandwich (v)")
+                            .station("Entree Specials")
+                            .build();
+
+            UCSBDiningCommonsMenuItems cookie = UCSBDiningCommonsMenuItems.builder()
+                            .id(3L)
+                            .diningCommonsCode("ortega")
+                            .name("Chocolate Chip Cookie")
+                            .station("Grab and Go")
+                            .build();
+
+            UCSBDiningCommonsMenuItems unassigned = UCSBDiningCommonsMenuItems.builder()
+                            .id(4L)
+                            .diningCommonsCode("ortega")
+                            .name("Fruit Cup")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCodeOrderByStationAscNameAsc(eq("ortega"), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1))))
+                            .thenReturn(Arrays.asList(bakedPesto, tofu, cookie, unassigned));
+
+            Map<String, List<UCSBDiningCommonsMenuItems>> expected = new LinkedHashMap<>();
+            expected.put("Entree Specials", Arrays.asList(bakedPesto, tofu));
+            expected.put("Grab and Go", Arrays.asList(cookie));
+            expected.put("", Arrays.asList(unassigned));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/byCommons?diningCommonsCode=ortega"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findAllByDiningCommonsCodeOrderByStationAscNameAsc(eq("ortega"), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
+            String expectedJson = mapper.writeValueAsString(expected);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+            assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void a_commons_menu_stops_at_the_limit_and_says_so() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItems cookie = UCSBDiningCommonsMenuItems.builder()
+                            .id(3L)
+                            .diningCommonsCode("ortega")
+                            .name("Chocolate Chip Cookie")
+                            .station("Grab and Go")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCodeOrderByStationAscNameAsc(eq("ortega"), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1))))
+                            .thenReturn(Collections.nCopies(ApiController.ALL_LIMIT + 1, cookie));
+
+            Map<String, List<UCSBDiningCommonsMenuItems>> expected = new LinkedHashMap<>();
+            expected.put("Grab and Go", Collections.nCopies(ApiController.ALL_LIMIT, cookie));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/byCommons?diningCommonsCode=ortega"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            assertEquals("true", response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+            assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_single_station() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItems cookie = UCSBDiningCommonsMenuItems.builder()
+                            .id(3L)
+                            .diningCommonsCode("ortega")
+                            .name("Chocolate Chip Cookie")
+                            .station("Grab and Go")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCodeAndStationOrderByNameAsc(eq("ortega"), eq("Grab and Go"), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1))))
+                            .thenReturn(Arrays.asList(cookie));
+
+            Map<String, List<UCSBDiningCommonsMenuItems>> expected = new LinkedHashMap<>();
+            expected.put("Grab and Go", Arrays.asList(cookie));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/byCommons?diningCommonsCode=ortega&station=Grab and Go"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findAllByDiningCommonsCodeAndStationOrderByNameAsc(eq("ortega"), eq("Grab and Go"), eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
+            verify(ucsbDiningCommonsMenuItemsRepository, never()).findAllByDiningCommonsCodeOrderByStationAscNameAsc(any(), any());
+            String expectedJson = mapper.writeValueAsString(expected);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    // Tests for GET /api/UCSBDiningCommonsMenuItem/top
+
+    @Test
+    public void logged_out_users_cannot_get_top() throws Exception {
+            mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/top?commons=ortega"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_the_best_rated_items_at_a_commons() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItems bakedPesto = UCSBDiningCommonsMenuItems.builder()
+                            .id(1L)
+                            .diningCommonsCode("ortega")
+                            .name("Baked Pesto Pasta with Chicken")
+                            .station("Entree Specials")
+                            .build();
+
+            UCSBDiningCommonsMenuItems tofu = UCSBDiningCommonsMenuItems.builder()
+                            .id(2L)
+                            .diningCommonsCode("ortega")
+                            .name("Tofu Banh Mi Sandwich (v)")
+                            .station("Entree Specials")
+                            .build();
+
+            List<RankedMenuItem> expected = Arrays.asList(
+                            new RankedMenuItem(tofu, MenuItemRating.builder().itemId(2L).reviewCount(2).starsTotal(10).fiveStars(2).build()),
+                            new RankedMenuItem(bakedPesto, MenuItemRating.builder().itemId(1L).reviewCount(1).starsTotal(4).fourStars(1).build()));
+
+            when(ucsbDiningCommonsMenuItemsRepository.findTopRated(eq("ortega"), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/top?commons=ortega&n=2"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findTopRated("ortega", PageRequest.of(0, 2));
+            String expectedJson = mapper.writeValueAsString(expected);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void top_defaults_to_ten_and_caps_n() throws Exception {
+
+            // act
+            mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/top?commons=ortega"))
+                            .andExpect(status().isOk());
+            mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/top?commons=ortega&n=1000000"))
+                            .andExpect(status().isOk());
+
+            // assert
+            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findTopRated("ortega", PageRequest.of(0, 10));
+            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findTopRated("ortega", PageRequest.of(0, KeysetPage.MAX_LIMIT));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_opt_in_to_the_whole_table() throws Exception {
+        ArrayList<UCSBDiningCommonsMenuItems> everything = new ArrayList<>(Arrays.asList(UCSBDiningCommonsMenuItems.builder().build()));
+        when(ucsbDiningCommonsMenuItemsRepository.findAll()).thenReturn(everything);
+
+        MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/all?unbounded=true"))
+                        .andExpect(status().isOk()).andReturn();
+
+        verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findAll();
+        assertEquals(mapper.writeValueAsString(everything), response.getResponse().getContentAsString());
+        assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+    }
+
+    // Tests for GET /api/UCSBDiningCommonsMenuItem/page
+
+    @Test
+    public void logged_out_users_cannot_get_page() throws Exception {
+            mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/page"))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_first_page_with_next_cursor() throws Exception {
+
+            // arrange
+            UCSBDiningCommonsMenuItems menuItem1 = UCSBDiningCommonsMenuItems.builder()
+                            .id(1L)
+                            .diningCommonsCode("ortega")
+                            .name("item1")
+                            .station("station1")
+                            .build();
+
+            UCSBDiningCommonsMenuItems menuItem2 = UCSBDiningCommonsMenuItems.builder()
+                            .id(2L)
+                            .diningCommonsCode("ortega")
+                            .name("item2")
+                            .station("station2")
+                            .build();
+
+            UCSBDiningCommonsMenuItems menuItem3 = UCSBDiningCommonsMenuItems.builder()
+                            .id(3L)
+                            .diningCommonsCode("ortega")
+                            .name("item3")
+                            .station("station3")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemsRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                            .thenReturn(new ArrayList<>(Arrays.asList(menuItem1, menuItem2, menuItem3)));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/page?limit=2"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+            KeysetPage<UCSBDiningCommonsMenuItems> expectedPage = KeysetPage.<UCSBDiningCommonsMenuItems>builder()
+                            .content(Arrays.asList(menuItem1, menuItem2))
+                            .nextCursor(KeysetPage.encodeCursor("2"))
+                            .build();
+            String expectedJson = mapper.writeValueAsString(expectedPage);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_last_page_without_next_cursor() throws Exception {
+
+            // arrange
+            UCSBDiningCommonsMenuItems menuItem3 = UCSBDiningCommonsMenuItems.builder()
+                            .id(3L)
+                            .diningCommonsCode("ortega")
+                            .name("item3")
+                            .station("station3")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemsRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3))))
+                            .thenReturn(new ArrayList<>(Arrays.asList(menuItem3)));
+
+            // act
+            MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/page?limit=2&after=" + KeysetPage.encodeCursor("2")))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 3)));
+            KeysetPage<UCSBDiningCommonsMenuItems> expectedPage = KeysetPage.<UCSBDiningCommonsMenuItems>builder()
+                            .content(Arrays.asList(menuItem3))
+                            .build();
+            String expectedJson = mapper.writeValueAsString(expectedPage);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
     @Test
     public void logged_out_users_cannot_post() throws Exception {
             mockMvc.perform(post("/api/UCSBDiningCommonsMenuItem/post"))
@@ -200,12 +488,6 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 // arrange
 
 
-                UCSBDiningCommonsMenuItems ucsbDateOrig = UCSBDiningCommonsMenuItems.builder()
-                                .diningCommonsCode("diningCommonsCode")
-                                .name("name")
-                                .station("station")
-                                .build();
-
                 UCSBDiningCommonsMenuItems ucsbDateEdited = UCSBDiningCommonsMenuItems.builder()
                                 .diningCommonsCode("dine")
                                 .name("gnome")
@@ -213,8 +495,9 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .build();
 
                 String requestBody = mapper.writeValueAsString(ucsbDateEdited);
+                ucsbDateEdited.setId(123L);
 
-                when(ucsbDiningCommonsMenuItemsRepository.findById(eq(123L))).thenReturn(Optional.of(ucsbDateOrig));
+                when(ucsbDiningCommonsMenuItemsRepository.update(eq(123L), eq(ucsbDateEdited))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -226,10 +509,9 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findById(123L);
-                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).update(123L, ucsbDateEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(ucsbDateEdited), responseString);
         }
 
         
@@ -247,7 +529,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedDate);
 
-                when(ucsbDiningCommonsMenuItemsRepository.findById(eq(123L))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsMenuItemsRepository.update(eq(123L), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -259,7 +541,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findById(123L);
+                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).update(eq(123L), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItems with id 123 not found", json.get("message"));
 
@@ -271,13 +553,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @Test
         public void admin_can_delete_a_date() throws Exception {
                 // arrange
-
-                UCSBDiningCommonsMenuItems ucsbDate1 = UCSBDiningCommonsMenuItems.builder()
-                                .diningCommonsCode("diningCommonsCode")
-                                .name("name")
-                                .station("station")
-                                .build();
-                when(ucsbDiningCommonsMenuItemsRepository.findById(eq(123L))).thenReturn(Optional.of(ucsbDate1));
+                when(ucsbDiningCommonsMenuItemsRepository.deleteByIdReturningCount(eq(123L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -286,8 +562,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findById(123L);
-                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).delete(any());
+                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).deleteByIdReturningCount(123L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItems with id 123 not found", json.get("message"));
@@ -299,7 +574,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                         throws Exception {
                 // arrange
 
-                when(ucsbDiningCommonsMenuItemsRepository.findById(eq(123L))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsMenuItemsRepository.deleteByIdReturningCount(eq(123L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -308,8 +583,51 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findById(123L);
+                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).deleteByIdReturningCount(123L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItems with id 123 not found", json.get("message"));
         }
+
+        // Tests for DELETE /api/UCSBDiningCommonsMenuItem?ids=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/UCSBDiningCommonsMenuItem?ids=1,2,3").with(csrf()))
+                                .andExpect(status().is(403)); // only admins can delete
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_several_in_one_call() throws Exception {
+                // arrange
+
+                when(ucsbDiningCommonsMenuItemsRepository.deleteAllByIdIn(eq(Arrays.asList(1L, 2L, 3L)))).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/UCSBDiningCommonsMenuItem?ids=1,2,3")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemsRepository, times(1)).deleteAllByIdIn(Arrays.asList(1L, 2L, 3L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("2 of 3 UCSBDiningCommonsMenuItems deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_with_no_ids_does_not_touch_the_database() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/UCSBDiningCommonsMenuItem?ids=")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemsRepository, never()).deleteAllByIdIn(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 of 0 UCSBDiningCommonsMenuItems deleted", json.get("message"));
+        }
 }
@@ -4,6 +4,7 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
 
 import java.util.ArrayList;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -24,8 +26,10 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -98,7 +102,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
                 ArrayList<UCSBOrganizations> expectedCommons = new ArrayList<>();
                 expectedCommons.addAll(Arrays.asList(org1, isfa));
 
-                when(ucsbOrganizationsRepository.findAll()).thenReturn(expectedCommons);
+                when(ucsbOrganizationsRepository.findAllByOrderByOrgCodeAsc(eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)))).thenReturn(expectedCommons);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/UCSBOrganization/all"))
@@ -106,12 +110,114 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbOrganizationsRepository, times(1)).findAll();
+                verify(ucsbOrganizationsRepository, times(1)).findAllByOrderByOrgCodeAsc(eq(PageRequest.of(0, ApiController.ALL_LIMIT + 1)));
                 String expectedJson = mapper.writeValueAsString(expectedCommons);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_opt_in_to_the_whole_table() throws Exception {
+                ArrayList<UCSBOrganizations> everything = new ArrayList<>(Arrays.asList(UCSBOrganizations.builder().build()));
+                when(ucsbOrganizationsRepository.findAll()).thenReturn(everything);
+
+                MvcResult response = mockMvc.perform(get("/api/UCSBOrganization/all?unbounded=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(ucsbOrganizationsRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(everything), response.getResponse().getContentAsString());
+                assertNull(response.getResponse().getHeader(ApiController.TRUNCATED_HEADER));
+        }
+
+        // Tests for GET /api/UCSBOrganization/page
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/UCSBOrganization/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+                UCSBOrganizations org1 = UCSBOrganizations.builder()
+                                .orgCode("KRC")
+                                .orgTranslationShort("KOREAN RADIO CL")
+                                .orgTranslation("KOREAN RADIO CLUB")
+                                .inactive(false)
+                                .build();
+
+                UCSBOrganizations org2 = UCSBOrganizations.builder()
+                                .orgCode("OSLI")
+                                .orgTranslationShort("STUDENT LIFE")
+                                .orgTranslation("OFFICE OF STUDENT LIFE")
+                                .inactive(false)
+                                .build();
+
+                UCSBOrganizations org3 = UCSBOrganizations.builder()
+                                .orgCode("ZPR")
+                                .orgTranslationShort("ZETA PHI RHO")
+                                .orgTranslation("ZETA PHI RHO")
+                                .inactive(false)
+                                .build();
+
+                when(ucsbOrganizationsRepository.findAllByOrderByOrgCodeAsc(eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(org1, org2, org3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/UCSBOrganization/page?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbOrganizationsRepository, times(1)).findAllByOrderByOrgCodeAsc(eq(PageRequest.of(0, 3)));
+                KeysetPage<UCSBOrganizations> expectedPage = KeysetPage.<UCSBOrganizations>builder()
+                                .content(Arrays.asList(org1, org2))
+                                .nextCursor(KeysetPage.encodeCursor(org2.getOrgCode()))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor() throws Exception {
+
+                // arrange
+                UCSBOrganizations org2 = UCSBOrganizations.builder()
+                                .orgCode("OSLI")
+                                .orgTranslationShort("STUDENT LIFE")
+                                .orgTranslation("OFFICE OF STUDENT LIFE")
+                                .inactive(false)
+                                .build();
+
+                UCSBOrganizations org3 = UCSBOrganizations.builder()
+                                .orgCode("ZPR")
+                                .orgTranslationShort("ZETA PHI RHO")
+                                .orgTranslation("ZETA PHI RHO")
+                                .inactive(false)
+                                .build();
+
+                when(ucsbOrganizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq(org2.getOrgCode()), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(org3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/UCSBOrganization/page?limit=2&after=" + KeysetPage.encodeCursor(org2.getOrgCode())))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbOrganizationsRepository, times(1)).findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq(org2.getOrgCode()), eq(PageRequest.of(0, 3)));
+                KeysetPage<UCSBOrganizations> expectedPage = KeysetPage.<UCSBOrganizations>builder()
+                                .content(Arrays.asList(org3))
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
         // Tests for POST /api/ucsborganizations...
 
         @Test
@@ -196,14 +302,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
         public void admin_can_delete_a_date() throws Exception {
                 // arrange
 
-                UCSBOrganizations isfa = UCSBOrganizations.builder()
-                                .orgCode("ISFA")
-                                .orgTranslationShort("ISFA")
-                                .orgTranslation("International Students' Film Association")
-                                .inactive(true)
-                                .build();
-
-                when(ucsbOrganizationsRepository.findById(eq("ISFA"))).thenReturn(Optional.of(isfa));
+                when(ucsbOrganizationsRepository.deleteByIdReturningCount(eq("ISFA"))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -212,8 +311,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationsRepository, times(1)).findById("ISFA");
-                verify(ucsbOrganizationsRepository, times(1)).delete(any());
+                verify(ucsbOrganizationsRepository, times(1)).deleteByIdReturningCount("ISFA");
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganizations with id ISFA deleted", json.get("message"));
@@ -225,7 +323,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbOrganizationsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+                when(ucsbOrganizationsRepository.deleteByIdReturningCount(eq("munger-hall"))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -234,11 +332,54 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationsRepository, times(1)).findById("munger-hall");
+                verify(ucsbOrganizationsRepository, times(1)).deleteByIdReturningCount("munger-hall");
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganizations with id munger-hall not found", json.get("message"));
         }
 
+        // Tests for DELETE /api/UCSBOrganization?orgCodes=...
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/UCSBOrganization?orgCodes=ISFA,OSLI,KRC").with(csrf()))
+                                .andExpect(status().is(403)); // only admins can delete
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_several_in_one_call() throws Exception {
+                // arrange
+
+                when(ucsbOrganizationsRepository.deleteAllByIdIn(eq(Arrays.asList("ISFA", "OSLI", "KRC")))).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/UCSBOrganization?orgCodes=ISFA,OSLI,KRC")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbOrganizationsRepository, times(1)).deleteAllByIdIn(Arrays.asList("ISFA", "OSLI", "KRC"));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("2 of 3 UCSBOrganizations deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_with_no_orgcodes_does_not_touch_the_database() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/UCSBOrganization?orgCodes=")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbOrganizationsRepository, never()).deleteAllByIdIn(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 of 0 UCSBOrganizations deleted", json.get("message"));
+        }
+
         // Tests for PUT /api/ucsborganizations?...
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -246,13 +387,6 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_commons() throws Exception {
                 // arrange
 
-                UCSBOrganizations org1 = UCSBOrganizations.builder()
-                                .orgCode("ORG1")
-                                .orgTranslationShort("O1")
-                                .orgTranslation("Organization 1")
-                                .inactive(false)
-                                .build();
-
                 UCSBOrganizations org2 = UCSBOrganizations.builder()
                                 .orgCode("ORG1")
                                 .orgTranslationShort("O2")
@@ -262,7 +396,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(org2);
 
-                when(ucsbOrganizationsRepository.findById(eq("ORG1"))).thenReturn(Optional.of(org1));
+                when(ucsbOrganizationsRepository.update(eq("ORG1"), eq(org2))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -274,8 +408,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationsRepository, times(1)).findById("ORG1");
-                verify(ucsbOrganizationsRepository, times(1)).save(org2); // should be saved with updated info
+                verify(ucsbOrganizationsRepository, times(1)).update("ORG1", org2);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -294,7 +427,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(org2);
 
-                when(ucsbOrganizationsRepository.findById(eq("ORG1"))).thenReturn(Optional.empty());
+                when(ucsbOrganizationsRepository.update(eq("ORG1"), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -306,7 +439,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationsRepository, times(1)).findById("ORG1");
+                verify(ucsbOrganizationsRepository, times(1)).update(eq("ORG1"), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganizations with id ORG1 not found", json.get("message"));
 
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+
+class LoadTestAuthenticationFilterTests {
+
+  private final LoadTestTokens tokens = new LoadTestTokens("secret", 10, 2);
+  private final LoadTestAuthenticationFilter filter = new LoadTestAuthenticationFilter(tokens);
+  private final AtomicBoolean passedOn = new AtomicBoolean();
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+
+  @BeforeEach
+  void setup() {
+    request = new MockHttpServletRequest("GET", "/api/ucsbdates/all");
+    response = new MockHttpServletResponse();
+  }
+
+  @AfterEach
+  void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private void runFilter() throws Exception {
+    filter.doFilter(request, response, (req, res) -> passedOn.set(true));
+  }
+
+  @Test
+  void test_valid_token_authenticates_the_request() throws Exception {
+    request.addHeader("Authorization", "Bearer " + tokens.token(4));
+
+    runFilter();
+
+    assertTrue(passedOn.get());
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    assertTrue(authentication instanceof OAuth2AuthenticationToken);
+    assertEquals("loadtest-4", authentication.getName());
+  }
+
+  @Test
+  void test_invalid_token_is_refused() throws Exception {
+    request.addHeader("Authorization", "Bearer 4.forged");
+
+    runFilter();
+
+    assertFalse(passedOn.get());
+    assertEquals(401, response.getStatus());
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+
+  @Test
+  void test_request_without_token_passes_through() throws Exception {
+    runFilter();
+
+    assertTrue(passedOn.get());
+    assertEquals(200, response.getStatus());
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+
+  @Test
+  void test_other_authorization_schemes_pass_through() throws Exception {
+    request.addHeader("Authorization", "Basic dXNlcjpwYXNz");
+
+    runFilter();
+
+    assertTrue(passedOn.get());
+    assertFalse(LoadTestAuthenticationFilter.hasBearerToken(request));
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+}
@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+class LoadTestTokensTests {
+
+  private final LoadTestTokens tokens = new LoadTestTokens("secret", 10, 2);
+
+  private static Set<String> authorities(OAuth2AuthenticationToken authentication) {
+    return authentication.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority)
+        .collect(Collectors.toSet());
+  }
+
+  @Test
+  void test_counts_and_emails() {
+    assertEquals(10, tokens.users());
+    assertEquals(2, tokens.admins());
+    assertEquals("loadtest-user-7@ucsb.edu", LoadTestTokens.email(7));
+  }
+
+  @Test
+  void test_token_authenticates_as_an_oauth_user() {
+    OAuth2AuthenticationToken authentication = tokens.authenticate(tokens.token(5)).get();
+
+    OAuth2User user = authentication.getPrincipal();
+    assertEquals("loadtest-5", user.getName());
+    assertEquals("loadtest-user-5@ucsb.edu", user.getAttribute("email"));
+    assertEquals(true, user.getAttribute("email_verified"));
+    assertEquals("ucsb.edu", user.getAttribute("hd"));
+    assertEquals(LoadTestTokens.REGISTRATION_ID, authentication.getAuthorizedClientRegistrationId());
+    assertEquals(Set.of("ROLE_USER", "ROLE_MEMBER"), authorities(authentication));
+  }
+
+  @Test
+  void test_first_users_are_admins() {
+    assertTrue(authorities(tokens.authenticate(tokens.token(0)).get()).contains("ROLE_ADMIN"));
+    assertTrue(authorities(tokens.authenticate(tokens.token(1)).get()).contains("ROLE_ADMIN"));
+    assertFalse(authorities(tokens.authenticate(tokens.token(2)).get()).contains("ROLE_ADMIN"));
+  }
+
+  @Test
+  void test_token_from_another_secret_is_refused() {
+    String forged = new LoadTestTokens("other", 10, 2).token(0);
+    assertNotEquals(tokens.token(0), forged);
+    assertTrue(tokens.authenticate(forged).isEmpty());
+  }
+
+  @Test
+  void test_token_for_another_user_is_refused() {
+    String signatureForZero = tokens.token(0).substring(2);
+    assertTrue(tokens.authenticate("3." + signatureForZero).isEmpty());
+  }
+
+  @Test
+  void test_malformed_and_out_of_range_tokens_are_refused() {
+    assertTrue(tokens.authenticate("").isEmpty());
+    assertTrue(tokens.authenticate("nodot").isEmpty());
+    assertTrue(tokens.authenticate(".abc").isEmpty());
+    assertTrue(tokens.authenticate("x.abc").isEmpty());
+    assertTrue(tokens.authenticate("-1.abc").isEmpty());
+    assertTrue(tokens.authenticate("10.abc").isEmpty());
+  }
+
+  @Test
+  void test_missing_secret_is_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> new LoadTestTokens(null, 10, 2));
+    assertThrows(IllegalArgumentException.class, () -> new LoadTestTokens("", 10, 2));
+    assertThrows(IllegalArgumentException.class, () -> new LoadTestTokens("  ", 10, 2));
+  }
+
+  @Test
+  void test_missing_algorithm_is_reported() {
+    LoadTestTokens unsupported = new LoadTestTokens("secret", 10, 2, "HmacNone");
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> unsupported.token(0));
+    assertTrue(e.getCause() instanceof java.security.NoSuchAlgorithmException);
+  }
+}
@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.example.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+class AccessLogFilterTests {
+
+  private final List<AccessLogEntry> written = new ArrayList<>();
+  private AccessLogFilter filter;
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+
+  @BeforeEach
+  void setup() {
+    filter = new AccessLogFilter(new AccessLog(16, written::add), 1.0);
+    request = new MockHttpServletRequest("GET", "/api/HelpRequest");
+    response = new MockHttpServletResponse();
+  }
+
+  @AfterEach
+  void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private AccessLogEntry onlyEntry() {
+    filter.accessLog.drain();
+    assertEquals(1, written.size());
+    return written.get(0);
+  }
+
+  @Test
+  void test_records_route_template_status_bytes_and_user() throws Exception {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("10234", null, "ROLE_USER"));
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/HelpRequest");
+    request.setParameter("id", "7");
+
+    filter.doFilter(request, response, (req, res) -> {
+      ((HttpServletResponse) res).setStatus(201);
+      res.getOutputStream().write(new byte[] { 1, 2, 3, 4 }, 1, 3);
+      res.getOutputStream().write(5);
+    });
+
+    AccessLogEntry entry = onlyEntry();
+    assertEquals("GET", entry.getMethod());
+    assertEquals("/api/HelpRequest", entry.getRoute());
+    assertEquals(201, entry.getStatus());
+    assertEquals(4, entry.getBytes());
+    assertEquals("10234", entry.getUser());
+    assertTrue(entry.getMicros() >= 0);
+    assertEquals(4, response.getContentAsByteArray().length);
+  }
+
+  @Test
+  void test_unmatched_request_uses_uri_and_anonymous_user() throws Exception {
+    SecurityContextHolder.getContext().setAuthentication(
+        new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+    request.setRequestURI("/no/such/page");
+
+    filter.doFilter(request, response, (req, res) -> ((HttpServletResponse) res).setStatus(404));
+
+    AccessLogEntry entry = onlyEntry();
+    assertEquals("/no/such/page", entry.getRoute());
+    assertEquals(404, entry.getStatus());
+    assertEquals(0, entry.getBytes());
+    assertEquals("-", entry.getUser());
+  }
+
+  @Test
+  void test_writer_bodies_are_not_counted() throws Exception {
+    filter.doFilter(request, response, (req, res) -> res.getWriter().write("hello"));
+
+    AccessLogEntry entry = onlyEntry();
+    assertEquals(-1, entry.getBytes());
+    assertEquals("-", entry.getUser());
+    assertEquals("hello", response.getContentAsString());
+  }
+
+  @Test
+  void test_exception_is_recorded_as_server_error_even_when_not_sampled() throws Exception {
+    filter = new AccessLogFilter(new AccessLog(16, written::add), 0.0);
+    IllegalStateException failure = new IllegalStateException("boom");
+
+    IllegalStateException thrown = assertThrows(IllegalStateException.class,
+        () -> filter.doFilter(request, response, (req, res) -> {
+          throw failure;
+        }));
+
+    assertSame(failure, thrown);
+    assertEquals(500, onlyEntry().getStatus());
+  }
+
+  @Test
+  void test_successful_requests_are_sampled() throws Exception {
+    filter = new AccessLogFilter(new AccessLog(16, written::add), 0.25);
+    FilterChain ok = (req, res) -> {};
+
+    filter.random = () -> 0.5;
+    filter.doFilter(request, new MockHttpServletResponse(), ok);
+    filter.random = () -> 0.1;
+    filter.doFilter(request, new MockHttpServletResponse(), ok);
+
+    assertEquals(200, onlyEntry().getStatus());
+  }
+
+  @Test
+  void test_counting_stream_delegates() throws Exception {
+    ServletOutputStream delegate = mock(ServletOutputStream.class);
+    WriteListener listener = mock(WriteListener.class);
+    when(delegate.isReady()).thenReturn(true);
+    AccessLogFilter.CountingOutputStream out = new AccessLogFilter.CountingOutputStream(delegate);
+
+    assertTrue(out.isReady());
+    out.setWriteListener(listener);
+    out.flush();
+    out.close();
+
+    verify(delegate).setWriteListener(listener);
+    verify(delegate).flush();
+    verify(delegate).close();
+  }
+
+  @Test
+  void test_configured_filter_starts_and_stops_its_drainer() throws Exception {
+    AccessLogFilter configured = new AccessLogFilter(100, 0.5);
+    assertEquals(128, configured.accessLog.capacity());
+    assertEquals(0.5, configured.sampleRate);
+
+    configured.initFilterBean();
+    configured.destroy();
+  }
+
+  @Test
+  void test_interrupted_destroy_keeps_interrupt_status() throws Exception {
+    AccessLogFilter configured = new AccessLogFilter(16, 1.0);
+    configured.initFilterBean();
+
+    Thread.currentThread().interrupt();
+    configured.destroy();
+
+    assertTrue(Thread.interrupted());
+  }
+
+}
@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AccessLogTests {
+
+  private final List<AccessLogEntry> written = new ArrayList<>();
+
+  private static AccessLogEntry entry(int status) {
+    return new AccessLogEntry("GET", "/api/ucsbdates/all", status, 120, 512, "-");
+  }
+
+  @Test
+  void test_capacity_is_rounded_up_to_a_power_of_two() {
+    assertEquals(8, new AccessLog(5, written::add).capacity());
+    assertEquals(8, new AccessLog(8, written::add).capacity());
+    assertEquals(2, new AccessLog(0, written::add).capacity());
+  }
+
+  @Test
+  void test_entries_are_drained_in_order() {
+    AccessLog log = new AccessLog(4, written::add);
+    log.offer(entry(200));
+    log.offer(entry(404));
+
+    assertEquals(2, log.drain());
+    assertEquals(List.of(entry(200), entry(404)), written);
+    assertEquals(0, log.drain());
+  }
+
+  @Test
+  void test_full_buffer_drops_and_counts_until_drained() {
+    AccessLog log = new AccessLog(2, written::add);
+
+    assertTrue(log.offer(entry(200)));
+    assertTrue(log.offer(entry(201)));
+    assertFalse(log.offer(entry(202)));
+    assertFalse(log.offer(entry(203)));
+    assertEquals(2, log.dropped());
+
+    assertEquals(2, log.drain());
+    assertTrue(log.offer(entry(204)));
+    assertEquals(1, log.drain());
+    assertEquals(List.of(entry(200), entry(201), entry(204)), written);
+    assertEquals(2, log.dropped());
+  }
+
+  @Test
+  void test_pollOnce_drains_or_idles() {
+    AccessLog log = new AccessLog(4, written::add);
+
+    log.pollOnce();
+    assertTrue(written.isEmpty());
+
+    log.offer(entry(200));
+    log.pollOnce();
+    assertEquals(List.of(entry(200)), written);
+  }
+
+  @Test
+  void test_drainer_thread_writes_entries_and_flushes_on_stop() throws Exception {
+    ConcurrentLinkedQueue<AccessLogEntry> received = new ConcurrentLinkedQueue<>();
+    AccessLog log = new AccessLog(16, received::add);
+    log.start();
+    log.start();
+
+    log.offer(entry(200));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (received.isEmpty() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    log.offer(entry(500));
+    log.stop();
+
+    assertEquals(List.of(entry(200), entry(500)), new ArrayList<>(received));
+  }
+
+  @Test
+  void test_stop_before_start_does_nothing() throws Exception {
+    new AccessLog(4, written::add).stop();
+  }
+
+  @Test
+  void test_concurrent_producers_lose_nothing_that_was_accepted() throws Exception {
+    int producers = 8;
+    int perProducer = 5000;
+    AccessLog log = new AccessLog(producers * perProducer, written::add);
+    ExecutorService pool = Executors.newFixedThreadPool(producers);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> offers = new ArrayList<>();
+      for (int p = 0; p < producers; p++) {
+        offers.add(pool.submit(() -> {
+          start.await();
+          for (int i = 0; i < perProducer; i++) {
+            assertTrue(log.offer(entry(200)));
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> offer : offers) {
+        offer.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(producers * perProducer, log.drain());
+    assertEquals(0, log.dropped());
+  }
+
+  @Test
+  void test_entry_is_formatted_as_key_value_pairs() {
+    assertEquals("method=GET route=/api/ucsbdates/all status=200 micros=120 bytes=512 user=-", entry(200).toString());
+  }
+
+}
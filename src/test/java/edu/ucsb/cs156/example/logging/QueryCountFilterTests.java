@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class QueryCountFilterTests {
+
+  private final QueryCountFilter filter = new QueryCountFilter();
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+
+  @BeforeEach
+  void setup() {
+    request = new MockHttpServletRequest("DELETE", "/api/Articles");
+    response = new MockHttpServletResponse();
+  }
+
+  // what a delete that reads the row again before removing it looks like
+  private static void readTwiceThenDelete() {
+    QueryStats.recordStatement("select * from articles where id=?", 1_000_000);
+    QueryStats.recordRows(1);
+    QueryStats.recordStatement("select * from articles where id=?", 500_000);
+    QueryStats.recordRows(1);
+    QueryStats.recordStatement("delete from articles where id=?", 300_000);
+    QueryStats.recordRows(1);
+  }
+
+  @Test
+  void test_headers_are_added_before_the_body_is_written() throws Exception {
+    filter.doFilter(request, response, (req, res) -> {
+      readTwiceThenDelete();
+      res.getOutputStream().write('{');
+      QueryStats.recordStatement("select 1", 0);
+    });
+
+    assertEquals("3", response.getHeader("X-Query-Count"));
+    assertEquals("1", response.getHeader("X-Query-Repeated"));
+    assertEquals("db;dur=1.8;desc=\"3 statements, 3 rows\"", response.getHeader("Server-Timing"));
+  }
+
+  @Test
+  void test_headers_are_added_when_writing_through_the_writer() throws Exception {
+    filter.doFilter(request, response, (req, res) -> {
+      QueryStats.recordStatement("select * from articles where id=?", 0);
+      res.getWriter().write("{}");
+    });
+
+    assertEquals("1", response.getHeader("X-Query-Count"));
+    assertEquals("0", response.getHeader("X-Query-Repeated"));
+    assertEquals("{}", response.getContentAsString());
+  }
+
+  @Test
+  void test_headers_are_added_on_flush() throws Exception {
+    filter.doFilter(request, response, (req, res) -> res.flushBuffer());
+
+    assertEquals("0", response.getHeader("X-Query-Count"));
+    assertEquals("db;dur=0.0;desc=\"0 statements, 0 rows\"", response.getHeader("Server-Timing"));
+  }
+
+  @Test
+  void test_headers_are_added_to_responses_without_a_body() throws Exception {
+    filter.doFilter(request, response, (req, res) -> readTwiceThenDelete());
+
+    assertEquals("3", response.getHeader("X-Query-Count"));
+  }
+
+  @Test
+  void test_already_committed_response_is_left_alone() throws Exception {
+    response.setCommitted(true);
+
+    filter.doFilter(request, response, (req, res) -> readTwiceThenDelete());
+
+    assertNull(response.getHeader("X-Query-Count"));
+  }
+
+  @Test
+  void test_streaming_response_gets_no_headers() throws Exception {
+    request.setAsyncSupported(true);
+
+    filter.doFilter(request, response, (req, res) -> {
+      readTwiceThenDelete();
+      req.startAsync();
+      res.getOutputStream().write(':');
+    });
+
+    assertNull(response.getHeader("X-Query-Count"));
+    assertNull(response.getHeader("X-Query-Repeated"));
+    assertNull(response.getHeader("Server-Timing"));
+  }
+
+  @Test
+  void test_streaming_response_that_has_not_written_yet_gets_no_headers() throws Exception {
+    request.setAsyncSupported(true);
+
+    filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+    assertNull(response.getHeader("X-Query-Count"));
+  }
+
+  @Test
+  void test_stats_are_detached_from_the_thread_when_the_request_fails() throws Exception {
+    QueryStats stats = QueryStats.begin();
+    FilterChain failing = (req, res) -> {
+      throw new IllegalStateException("boom");
+    };
+
+    assertThrows(IllegalStateException.class, () -> filter.doFilter(request, response, failing));
+    QueryStats.recordStatement("select 1", 0);
+
+    assertEquals(0, stats.getStatements());
+    assertNull(response.getHeader("X-Query-Count"));
+  }
+
+}
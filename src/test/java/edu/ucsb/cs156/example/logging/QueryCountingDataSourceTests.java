@@ -0,0 +1,197 @@
+package edu.ucsb.cs156.example.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+class QueryCountingDataSourceTests {
+
+  private static final String SELECT = "select * from helprequests where id=?";
+
+  private Connection target;
+  private DataSource dataSource;
+  private QueryStats stats;
+
+  @BeforeEach
+  void setup() throws Exception {
+    DataSource targetDataSource = mock(DataSource.class);
+    target = mock(Connection.class);
+    when(targetDataSource.getConnection()).thenReturn(target);
+    when(targetDataSource.getLoginTimeout()).thenReturn(30);
+    dataSource = QueryCountingDataSource.wrap(targetDataSource);
+    stats = QueryStats.begin();
+  }
+
+  @AfterEach
+  void teardown() {
+    QueryStats.end();
+  }
+
+  private ResultSet rows(int count) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    Boolean[] more = new Boolean[count];
+    Arrays.fill(more, true);
+    more[count - 1] = false;
+    when(resultSet.next()).thenReturn(true, more);
+    when(resultSet.getLong(1)).thenReturn(42L);
+    return resultSet;
+  }
+
+  @Test
+  void test_prepared_queries_count_statements_and_rows() throws Exception {
+    PreparedStatement prepared = mock(PreparedStatement.class);
+    ResultSet first = rows(2);
+    ResultSet second = rows(1);
+    when(target.prepareStatement(SELECT)).thenReturn(prepared);
+    when(prepared.executeQuery()).thenReturn(first, second);
+
+    try (Connection connection = dataSource.getConnection()) {
+      for (int i = 0; i < 2; i++) {
+        PreparedStatement statement = connection.prepareStatement(SELECT);
+        statement.setLong(1, i);
+        ResultSet resultSet = statement.executeQuery();
+        while (resultSet.next()) {
+          assertEquals(42L, resultSet.getLong(1));
+        }
+      }
+    }
+
+    assertEquals(2, stats.getStatements());
+    assertEquals(3, stats.getRows());
+    assertTrue(stats.getJdbcNanos() >= 0);
+    assertEquals(Map.of(SELECT, 2), stats.repeated());
+    verify(prepared).setLong(1, 1L);
+    verify(target).close();
+  }
+
+  @Test
+  void test_plain_statements_use_the_sql_passed_to_execute() throws Exception {
+    Statement plain = mock(Statement.class);
+    ResultSet resultSet = rows(2);
+    when(target.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(plain);
+    when(plain.execute("select 1")).thenReturn(true);
+    when(plain.getResultSet()).thenReturn(resultSet, (ResultSet) null);
+
+    Statement statement = dataSource.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    assertTrue(statement.execute("select 1"));
+    ResultSet wrapped = statement.getResultSet();
+    while (wrapped.next()) {
+      // count the rows
+    }
+    assertNull(statement.getResultSet());
+
+    assertEquals(1, stats.getStatements());
+    assertEquals(2, stats.getRows());
+    assertTrue(stats.repeated().isEmpty());
+  }
+
+  @Test
+  void test_update_counts_are_added_as_rows() throws Exception {
+    PreparedStatement prepared = mock(PreparedStatement.class);
+    when(target.prepareStatement("delete from articles where id in (?, ?)")).thenReturn(prepared);
+    when(prepared.executeUpdate()).thenReturn(2);
+    when(prepared.executeBatch()).thenReturn(new int[] { 1, Statement.SUCCESS_NO_INFO, 1 });
+
+    PreparedStatement statement = dataSource.getConnection().prepareStatement("delete from articles where id in (?, ?)");
+    assertEquals(2, statement.executeUpdate());
+    statement.executeBatch();
+
+    assertEquals(2, stats.getStatements());
+    assertEquals(4, stats.getRows());
+  }
+
+  @Test
+  void test_updateCount_of_each_result_type() {
+    assertEquals(3, QueryCountingDataSource.updateCount(3));
+    assertEquals(0, QueryCountingDataSource.updateCount(-1));
+    assertEquals(7, QueryCountingDataSource.updateCount(new long[] { 3, -2, 4 }));
+    assertEquals(0, QueryCountingDataSource.updateCount(Boolean.FALSE));
+  }
+
+  @Test
+  void test_failed_statement_is_counted_and_rethrown() throws Exception {
+    PreparedStatement prepared = mock(PreparedStatement.class);
+    SQLException failure = new SQLException("Unique index or primary key violation");
+    when(target.prepareStatement("insert into users (email) values (?)")).thenReturn(prepared);
+    when(prepared.executeUpdate()).thenThrow(failure);
+
+    PreparedStatement statement = dataSource.getConnection().prepareStatement("insert into users (email) values (?)");
+
+    assertSame(failure, assertThrows(SQLException.class, statement::executeUpdate));
+    assertEquals(1, stats.getStatements());
+    assertEquals(0, stats.getRows());
+  }
+
+  @Test
+  void test_other_calls_pass_through() throws Exception {
+    when(target.getAutoCommit()).thenReturn(false);
+
+    assertEquals(30, dataSource.getLoginTimeout());
+    assertFalse(dataSource.getConnection().getAutoCommit());
+    assertEquals(0, stats.getStatements());
+  }
+
+  @Test
+  void test_connections_for_another_user_are_counted_too() throws Exception {
+    DataSource targetDataSource = mock(DataSource.class);
+    Statement plain = mock(Statement.class);
+    when(targetDataSource.getConnection("sa", "password")).thenReturn(target);
+    when(target.createStatement()).thenReturn(plain);
+
+    QueryCountingDataSource.wrap(targetDataSource).getConnection("sa", "password").createStatement().execute("select 1");
+
+    assertEquals(1, stats.getStatements());
+  }
+
+  @Test
+  void test_unwrap_reaches_the_pool() throws Exception {
+    try (HikariDataSource pool = new HikariDataSource()) {
+      DataSource wrapped = QueryCountingDataSource.wrap(pool);
+
+      assertTrue(wrapped.isWrapperFor(HikariDataSource.class));
+      assertSame(pool, wrapped.unwrap(HikariDataSource.class));
+      assertSame(pool, ((DelegatingDataSource) wrapped).getTargetDataSource());
+    }
+  }
+
+  @Test
+  void test_nothing_is_recorded_outside_a_request() throws Exception {
+    QueryStats.end();
+    PreparedStatement prepared = mock(PreparedStatement.class);
+    ResultSet stored = rows(2);
+    when(target.prepareStatement(SELECT)).thenReturn(prepared);
+    when(prepared.executeQuery()).thenReturn(stored);
+
+    ResultSet resultSet = dataSource.getConnection().prepareStatement(SELECT).executeQuery();
+    while (resultSet.next()) {
+      // count the rows
+    }
+
+    assertEquals(0, stats.getStatements());
+    assertEquals(0, stats.getRows());
+  }
+
+}
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+
+class DetachingRepositoryImplTests {
+
+  @Test
+  void test_detach_delegates_to_entity_manager() {
+    // arrange
+    EntityManager entityManager = mock(EntityManager.class);
+    DetachingRepositoryImpl repository = new DetachingRepositoryImpl();
+    ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+    HelpRequest helpRequest = HelpRequest.builder().id(7L).build();
+
+    // act
+    repository.detach(helpRequest);
+
+    // assert
+    verify(entityManager, times(1)).detach(helpRequest);
+  }
+
+}
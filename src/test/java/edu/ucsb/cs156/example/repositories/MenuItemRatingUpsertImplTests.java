@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+
+class MenuItemRatingUpsertImplTests {
+
+  private Connection connection;
+  private DatabaseMetaData metaData;
+  private PreparedStatement statement;
+
+  private final MenuItemRating delta = MenuItemRating.builder()
+      .itemId(5L).reviewCount(1).starsTotal(4).fourStars(1).build();
+
+  @BeforeEach
+  void setup() throws Exception {
+    connection = mock(Connection.class);
+    metaData = mock(DatabaseMetaData.class);
+    statement = mock(PreparedStatement.class);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(connection.prepareStatement(any())).thenReturn(statement);
+  }
+
+  private void verifyBound(int times) throws Exception {
+    verify(statement, times(times)).setLong(1, 5L);
+    verify(statement, times(times)).setLong(2, 1L);
+    verify(statement, times(times)).setLong(3, 4L);
+    verify(statement, times(times)).setLong(4, 0L);
+    verify(statement, times(times)).setLong(5, 0L);
+    verify(statement, times(times)).setLong(6, 0L);
+    verify(statement, times(times)).setLong(7, 1L);
+    verify(statement, times(times)).setLong(8, 0L);
+    verify(statement, times(times)).executeUpdate();
+  }
+
+  @Test
+  void test_postgres_uses_insert_on_conflict() throws Exception {
+    when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+
+    MenuItemRatingUpsertImpl.upsert(connection, delta);
+
+    verify(connection, times(1)).prepareStatement(MenuItemRatingUpsertImpl.POSTGRES);
+    verifyBound(1);
+    verify(statement, times(1)).close();
+  }
+
+  @Test
+  void test_h2_uses_merge() throws Exception {
+    when(metaData.getDatabaseProductName()).thenReturn("H2");
+
+    MenuItemRatingUpsertImpl.upsert(connection, delta);
+
+    verify(connection, times(1)).prepareStatement(MenuItemRatingUpsertImpl.H2);
+    verifyBound(1);
+  }
+
+  @Test
+  void test_h2_merge_that_lost_the_insert_race_is_run_again() throws Exception {
+    when(metaData.getDatabaseProductName()).thenReturn("H2");
+    when(statement.executeUpdate())
+        .thenThrow(new SQLIntegrityConstraintViolationException("primary key"))
+        .thenReturn(1);
+
+    MenuItemRatingUpsertImpl.upsert(connection, delta);
+
+    verify(connection, times(2)).prepareStatement(MenuItemRatingUpsertImpl.H2);
+    verifyBound(2);
+  }
+
+  @Test
+  void test_h2_merge_that_fails_twice_is_reported() throws Exception {
+    when(metaData.getDatabaseProductName()).thenReturn("H2");
+    when(statement.executeUpdate()).thenThrow(new SQLIntegrityConstraintViolationException("primary key"));
+
+    assertThrows(SQLIntegrityConstraintViolationException.class,
+        () -> MenuItemRatingUpsertImpl.upsert(connection, delta));
+  }
+
+  @Test
+  void test_upsert_runs_on_the_session_connection() throws Exception {
+    when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+    EntityManager entityManager = mock(EntityManager.class);
+    Session session = mock(Session.class);
+    when(entityManager.unwrap(Session.class)).thenReturn(session);
+    doAnswer(invocation -> {
+      invocation.<Work>getArgument(0).execute(connection);
+      return null;
+    }).when(session).doWork(any());
+    MenuItemRatingUpsertImpl upsert = new MenuItemRatingUpsertImpl();
+    ReflectionTestUtils.setField(upsert, "entityManager", entityManager);
+
+    upsert.upsert(delta);
+
+    verify(connection, times(1)).prepareStatement(MenuItemRatingUpsertImpl.POSTGRES);
+    verifyBound(1);
+  }
+}
@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.example.controllers.ApiController;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+
+// Checks that the reference tables are really read from Hibernate's
+// second-level and query caches, by counting cache hits and prepared
+// statements. Test-managed transactions are turned off so that every
+// repository call gets its own session, as requests do; otherwise the
+// first-level cache would answer instead.
+
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:secondlevelcache;DB_CLOSE_DELAY=-1",
+    "spring.liquibase.url=jdbc:h2:mem:secondlevelcache;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests {
+
+  @Autowired
+  UCSBDiningCommonsRepository commonsRepository;
+
+  @Autowired
+  UCSBOrganizationsRepository organizationsRepository;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  // what /all asks for
+  private static final PageRequest ALL = PageRequest.of(0, ApiController.ALL_LIMIT + 1);
+
+  private final UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+      .code("carrillo").name("Carrillo").hasSackMeal(false).hasTakeOutMeal(false).hasDiningCam(true)
+      .latitude(34.409953).longitude(-119.85277).build();
+
+  private final UCSBOrganizations zpr = UCSBOrganizations.builder()
+      .orgCode("ZPR").orgTranslationShort("ZETA PHI RHO").orgTranslation("ZETA PHI RHO").inactive(false).build();
+
+  @BeforeEach
+  void setup() {
+    commonsRepository.save(carrillo);
+    organizationsRepository.save(zpr);
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  private static <T> List<T> list(Iterable<T> rows) {
+    return StreamSupport.stream(rows.spliterator(), false).collect(Collectors.toList());
+  }
+
+  @Test
+  void test_repeated_all_listing_is_served_from_the_query_cache() {
+    commonsRepository.findAllByOrderByCodeAsc(ALL);
+    organizationsRepository.findAllByOrderByOrgCodeAsc(ALL);
+    long hits = statistics.getQueryCacheHitCount();
+    long statements = statistics.getPrepareStatementCount();
+
+    List<UCSBDiningCommons> commons = commonsRepository.findAllByOrderByCodeAsc(ALL);
+    List<UCSBOrganizations> orgs = organizationsRepository.findAllByOrderByOrgCodeAsc(ALL);
+
+    assertTrue(commons.stream().anyMatch(c -> c.getCode().equals("carrillo")));
+    assertTrue(orgs.stream().anyMatch(o -> o.getOrgCode().equals("ZPR")));
+    assertEquals(hits + 2, statistics.getQueryCacheHitCount());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void test_repeated_page_after_a_cursor_is_served_from_the_query_cache() {
+    PageRequest page = PageRequest.of(0, 51);
+    commonsRepository.findByCodeGreaterThanOrderByCodeAsc("a", page);
+    organizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc("A", page);
+    long hits = statistics.getQueryCacheHitCount();
+    long statements = statistics.getPrepareStatementCount();
+
+    assertTrue(commonsRepository.findByCodeGreaterThanOrderByCodeAsc("a", page).stream().anyMatch(c -> c.getCode().equals("carrillo")));
+    assertTrue(organizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc("A", page).stream().anyMatch(o -> o.getOrgCode().equals("ZPR")));
+
+    assertEquals(hits + 2, statistics.getQueryCacheHitCount());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void test_repeated_findAll_is_served_from_the_query_cache() {
+    list(commonsRepository.findAll());
+    list(organizationsRepository.findAll());
+    long hits = statistics.getQueryCacheHitCount();
+    long statements = statistics.getPrepareStatementCount();
+
+    List<UCSBDiningCommons> commons = list(commonsRepository.findAll());
+    List<UCSBOrganizations> orgs = list(organizationsRepository.findAll());
+
+    assertTrue(commons.stream().anyMatch(c -> c.getCode().equals("carrillo")));
+    assertTrue(orgs.stream().anyMatch(o -> o.getOrgCode().equals("ZPR")));
+    assertEquals(hits + 2, statistics.getQueryCacheHitCount());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void test_findById_is_served_from_the_entity_cache() {
+    long hits = statistics.getSecondLevelCacheHitCount();
+    long statements = statistics.getPrepareStatementCount();
+
+    assertEquals("Carrillo", commonsRepository.findById("carrillo").get().getName());
+    assertEquals("ZETA PHI RHO", organizationsRepository.findById("ZPR").get().getOrgTranslation());
+
+    assertEquals(hits + 2, statistics.getSecondLevelCacheHitCount());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void test_update_invalidates_the_cached_listings() {
+    list(commonsRepository.findAll());
+    commonsRepository.findAllByOrderByCodeAsc(ALL);
+    long statements = statistics.getPrepareStatementCount();
+
+    commonsRepository.update("carrillo", UCSBDiningCommons.builder()
+        .code("carrillo").name("Carrillo Renamed").hasSackMeal(false).hasTakeOutMeal(false).hasDiningCam(true)
+        .latitude(34.409953).longitude(-119.85277).build());
+    List<UCSBDiningCommons> commons = list(commonsRepository.findAll());
+    List<UCSBDiningCommons> all = commonsRepository.findAllByOrderByCodeAsc(ALL);
+
+    assertTrue(commons.stream().anyMatch(c -> c.getName().equals("Carrillo Renamed")));
+    assertTrue(all.stream().anyMatch(c -> c.getName().equals("Carrillo Renamed")));
+    assertTrue(statistics.getPrepareStatementCount() >= statements + 3);
+    commonsRepository.update("carrillo", carrillo);
+  }
+}
@@ -0,0 +1,124 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.AopTestUtils;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+
+// Checks the caching annotations on UCSBDateRepository by putting a caching
+// proxy in front of a mock of it.
+@SpringJUnitConfig
+class UCSBDateRepositoryCacheTests {
+
+  @Configuration
+  @EnableCaching
+  static class Config {
+    @Bean
+    CacheManager cacheManager() {
+      return new ConcurrentMapCacheManager(UCSBDateRepository.QUARTER_CACHE);
+    }
+
+    @Bean
+    UCSBDateRepository target() {
+      return mock(UCSBDateRepository.class);
+    }
+  }
+
+  @Autowired
+  UCSBDateRepository repository;
+
+  @Autowired
+  CacheManager cacheManager;
+
+  // the mock behind the caching proxy; stub and verify on this so that setting
+  // up a stub does not itself go through the cache
+  private UCSBDateRepository database;
+
+  private UCSBDate spring = UCSBDate.builder().id(1L).quarterYYYYQ("20222").name("firstDayOfClasses").build();
+  private UCSBDate fall = UCSBDate.builder().id(2L).quarterYYYYQ("20224").name("firstDayOfClasses").build();
+
+  private void primeBothQuarters() {
+    repository.findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc("20222");
+    repository.findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc("20224");
+  }
+
+  private void assertReadsFromDatabase(String quarter, int times) {
+    repository.findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc(quarter);
+    verify(database, times(times)).findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc(quarter);
+  }
+
+  @BeforeEach
+  void setup() {
+    cacheManager.getCache(UCSBDateRepository.QUARTER_CACHE).clear();
+    database = AopTestUtils.getUltimateTargetObject(repository);
+    reset(database);
+    when(database.findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc("20222")).thenReturn(List.of(spring));
+    when(database.findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc("20224")).thenReturn(List.of(fall));
+  }
+
+  @Test
+  void test_quarter_lookup_is_read_through() {
+    primeBothQuarters();
+
+    assertEquals(List.of(spring), repository.findAllByQuarterYYYYQOrderByLocalDateTimeAscIdAsc("20222"));
+    assertReadsFromDatabase("20222", 1);
+  }
+
+  @Test
+  void test_save_evicts_only_its_quarter() {
+    primeBothQuarters();
+
+    repository.save(UCSBDate.builder().quarterYYYYQ("20222").name("lastDayOfClasses").build());
+
+    assertReadsFromDatabase("20222", 2);
+    assertReadsFromDatabase("20224", 1);
+  }
+
+  @Test
+  void test_update_evicts_every_quarter() {
+    primeBothQuarters();
+
+    repository.update(2L, fall);
+
+    assertReadsFromDatabase("20222", 2);
+    assertReadsFromDatabase("20224", 2);
+  }
+
+  @Test
+  void test_delete_evicts_every_quarter() {
+    primeBothQuarters();
+
+    repository.deleteByIdReturningCount(1L);
+
+    assertReadsFromDatabase("20222", 2);
+    assertReadsFromDatabase("20224", 2);
+  }
+
+  @Test
+  void test_bulk_delete_evicts_every_quarter() {
+    primeBothQuarters();
+
+    repository.deleteAllByIdIn(List.of(1L, 2L));
+
+    assertReadsFromDatabase("20222", 2);
+    assertReadsFromDatabase("20224", 2);
+  }
+
+}
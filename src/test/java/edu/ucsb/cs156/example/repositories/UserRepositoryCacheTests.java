@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.AopTestUtils;
+
+import edu.ucsb.cs156.example.entities.User;
+
+// Checks the caching annotations on UserRepository by putting a caching proxy
+// in front of a mock of it.
+@SpringJUnitConfig
+class UserRepositoryCacheTests {
+
+  @Configuration
+  @EnableCaching
+  static class Config {
+    @Bean
+    CacheManager cacheManager() {
+      return new ConcurrentMapCacheManager(UserRepository.ADMIN_CACHE);
+    }
+
+    @Bean
+    UserRepository target() {
+      return mock(UserRepository.class);
+    }
+  }
+
+  @Autowired
+  UserRepository repository;
+
+  @Autowired
+  CacheManager cacheManager;
+
+  // the mock behind the caching proxy; stub and verify on this so that setting
+  // up a stub does not itself go through the cache
+  private UserRepository database;
+
+  private void assertReadsFromDatabase(String email, Optional<Boolean> expected, int times) {
+    assertEquals(expected, repository.findAdminByEmail(email));
+    verify(database, times(times)).findAdminByEmail(email);
+  }
+
+  @BeforeEach
+  void setup() {
+    cacheManager.getCache(UserRepository.ADMIN_CACHE).clear();
+    database = AopTestUtils.getUltimateTargetObject(repository);
+    reset(database);
+    when(database.findAdminByEmail("admin@ucsb.edu")).thenReturn(Optional.of(true));
+    when(database.findAdminByEmail("student@ucsb.edu")).thenReturn(Optional.of(false));
+    when(database.findAdminByEmail("new@ucsb.edu")).thenReturn(Optional.empty());
+  }
+
+  @Test
+  void test_admin_lookup_is_read_through() {
+    repository.findAdminByEmail("admin@ucsb.edu");
+    repository.findAdminByEmail("student@ucsb.edu");
+
+    assertReadsFromDatabase("admin@ucsb.edu", Optional.of(true), 1);
+    assertReadsFromDatabase("student@ucsb.edu", Optional.of(false), 1);
+  }
+
+  @Test
+  void test_unknown_email_is_cached_as_empty() {
+    repository.findAdminByEmail("new@ucsb.edu");
+
+    assertReadsFromDatabase("new@ucsb.edu", Optional.empty(), 1);
+  }
+
+  @Test
+  void test_save_evicts_only_that_email() {
+    repository.findAdminByEmail("admin@ucsb.edu");
+    repository.findAdminByEmail("student@ucsb.edu");
+    when(database.findAdminByEmail("student@ucsb.edu")).thenReturn(Optional.of(true));
+
+    repository.save(User.builder().email("student@ucsb.edu").admin(true).build());
+
+    assertReadsFromDatabase("student@ucsb.edu", Optional.of(true), 2);
+    assertReadsFromDatabase("admin@ucsb.edu", Optional.of(true), 1);
+  }
+
+}
@@ -0,0 +1,163 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+
+class ArticleSearchServiceTests {
+
+  private ArticlesRepository repository;
+  private ArticleSearchService service;
+
+  private Articles springBoot = article(1L, "Spring Boot", "A Java framework.");
+  private Articles java = article(2L, "Java", "spring, spring and more spring");
+  private Articles untitled = article(3L, "...untitled", null);
+
+  private static Articles article(long id, String title, String explanation) {
+    return Articles.builder()
+        .id(id)
+        .title(title)
+        .url("testurl")
+        .explanation(explanation)
+        .email("testemail")
+        .build();
+  }
+
+  private static List<Long> ids(List<ArticleSearchHit> hits) {
+    return hits.stream().map(hit -> hit.getArticle().getId()).collect(Collectors.toList());
+  }
+
+  @BeforeEach
+  void setup() {
+    repository = mock(ArticlesRepository.class);
+    service = new ArticleSearchService();
+    ReflectionTestUtils.setField(service, "articlesRepository", repository);
+  }
+
+  @Test
+  void test_search_ranks_by_tf_idf_with_title_boost() {
+    service.index(springBoot);
+    service.index(java);
+
+    List<ArticleSearchHit> hits = service.search("java BOOT", 10);
+
+    assertEquals(List.of(1L, 2L), ids(hits));
+    assertEquals(3 * Math.log(3) + Math.log(2), hits.get(0).getScore(), 1e-9);
+    assertEquals(3 * Math.log(2), hits.get(1).getScore(), 1e-9);
+  }
+
+  @Test
+  void test_search_breaks_ties_by_id_and_honours_limit() {
+    service.index(java);
+    service.index(springBoot);
+
+    // the title boost makes one title match worth three in the explanation
+    assertEquals(List.of(1L, 2L), ids(service.search("spring", 10)));
+    assertEquals(List.of(1L), ids(service.search("spring", 1)));
+  }
+
+  @Test
+  void test_search_ignores_unknown_terms_and_blank_queries() {
+    service.index(springBoot);
+    service.index(untitled);
+
+    assertEquals(List.of(3L), ids(service.search("untitled nothing", 10)));
+    assertEquals(List.of(), ids(service.search("  ", 10)));
+    assertEquals(List.of(), ids(service.search(null, 10)));
+  }
+
+  @Test
+  void test_index_replaces_the_previous_version() {
+    service.index(springBoot);
+    service.index(java);
+    service.index(article(1L, "Quarkus", "Another framework"));
+
+    assertEquals(List.of(), ids(service.search("boot", 10)));
+    assertEquals(List.of(2L), ids(service.search("java", 10)));
+    assertEquals(List.of(1L), ids(service.search("framework", 10)));
+  }
+
+  @Test
+  void test_deleted_removes_articles_and_ignores_unknown_ids() {
+    service.index(springBoot);
+    service.index(java);
+
+    service.deleted(List.of(2L, 99L));
+
+    assertEquals(List.of(1L), ids(service.search("spring java", 10)));
+  }
+
+  @Test
+  void test_initial_load_keeps_writes_made_while_it_runs() {
+    Articles editedJava = article(2L, "Kotlin", "not java");
+    when(repository.findAll()).thenAnswer(invocation -> {
+      service.index(editedJava);
+      service.deleted(List.of(3L));
+      return List.of(springBoot, java, untitled);
+    });
+
+    service.startInitialLoad().join();
+
+    assertEquals(List.of(1L), ids(service.search("spring", 10)));
+    assertEquals(List.of(2L), ids(service.search("kotlin", 10)));
+    assertEquals(List.of(), ids(service.search("untitled", 10)));
+
+    // once the load is over deletes no longer need remembering
+    service.deleted(List.of(1L));
+    service.index(springBoot);
+    assertEquals(List.of(1L), ids(service.search("spring", 10)));
+  }
+
+  @Test
+  void test_failed_initial_load_is_reported_and_stops_loading() {
+    AtomicReference<String> loader = new AtomicReference<>();
+    when(repository.findAll()).thenAnswer(invocation -> {
+      loader.set(Thread.currentThread().getName());
+      service.deleted(List.of(3L));
+      throw new IllegalStateException("database unavailable");
+    });
+
+    CompletionException e = assertThrows(CompletionException.class, () -> service.startInitialLoad().join());
+
+    assertInstanceOf(IllegalStateException.class, e.getCause());
+    assertTrue(loader.get().startsWith("article-search-load-"));
+    assertFalse((Boolean) ReflectionTestUtils.getField(service, "loading"));
+    assertEquals(Set.of(), ReflectionTestUtils.getField(service, "deletedDuringLoad"));
+
+    // writes after the failure are indexed as usual
+    service.index(springBoot);
+    service.deleted(List.of(2L));
+    assertEquals(List.of(1L), ids(service.search("spring", 10)));
+    assertEquals(Set.of(), ReflectionTestUtils.getField(service, "deletedDuringLoad"));
+  }
+
+  @Test
+  void test_onApplicationReady_loads_in_the_background() {
+    when(repository.findAll()).thenReturn(List.of(springBoot));
+
+    service.onApplicationReady();
+
+    verify(repository, timeout(5000)).findAll();
+  }
+
+}
@@ -0,0 +1,202 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class CurrentUserServiceImplTests {
+
+  private UserRepository repository;
+  private UserProvisioningService provisioning;
+  private CurrentUserServiceImpl service;
+  private ServletRequestAttributes request;
+
+  private final User student = User.builder().id(7L).email("cgaucho@ucsb.edu").admin(false).build();
+  private final User admin = User.builder().id(7L).email("cgaucho@ucsb.edu").admin(true).build();
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UserRepository.class);
+    provisioning = mock(UserProvisioningService.class);
+    service = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(service, "userRepository", repository);
+    ReflectionTestUtils.setField(service, "userProvisioning", provisioning);
+
+    request = new ServletRequestAttributes(new MockHttpServletRequest());
+    RequestContextHolder.setRequestAttributes(request);
+    login("cgaucho@ucsb.edu");
+  }
+
+  @AfterEach
+  void teardown() {
+    RequestContextHolder.resetRequestAttributes();
+    SecurityContextHolder.clearContext();
+  }
+
+  private static void login(String email) {
+    DefaultOAuth2User principal = new DefaultOAuth2User(
+        List.of(new SimpleGrantedAuthority("ROLE_USER")),
+        Map.of("sub", "1234", "email", email, "email_verified", true),
+        "sub");
+    SecurityContextHolder.getContext().setAuthentication(
+        new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "google"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void listAdmin(String email) {
+    ((Set<String>) ReflectionTestUtils.getField(service, "adminEmails")).add(email);
+  }
+
+  private Object sessionUser() {
+    return request.getAttribute(CurrentUserServiceImpl.SESSION_USER, RequestAttributes.SCOPE_SESSION);
+  }
+
+  @Test
+  void test_first_call_provisions_the_user_and_keeps_it_in_the_session() {
+    when(provisioning.findOrCreate(any())).thenReturn(student);
+
+    assertSame(student, service.getUser());
+
+    assertSame(student, sessionUser());
+    verify(provisioning, times(1)).findOrCreate(any());
+  }
+
+  @Test
+  void test_later_calls_are_answered_from_the_session() {
+    when(provisioning.findOrCreate(any())).thenReturn(student);
+    when(repository.findAdminByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(false));
+
+    service.getUser();
+    assertSame(student, service.getUser());
+    assertSame(student, service.getUser());
+
+    verify(provisioning, times(1)).findOrCreate(any());
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void test_session_user_for_another_email_is_not_used() {
+    when(provisioning.findOrCreate(any())).thenReturn(student);
+    request.setAttribute(CurrentUserServiceImpl.SESSION_USER,
+        User.builder().id(8L).email("other@ucsb.edu").build(), RequestAttributes.SCOPE_SESSION);
+
+    assertSame(student, service.getUser());
+    assertSame(student, sessionUser());
+  }
+
+  @Test
+  void test_demoted_admin_is_refreshed() {
+    request.setAttribute(CurrentUserServiceImpl.SESSION_USER, admin, RequestAttributes.SCOPE_SESSION);
+    when(repository.findAdminByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(false));
+    when(provisioning.findOrCreate(any())).thenReturn(student);
+
+    User user = service.getUser();
+
+    assertFalse(user.getAdmin());
+    assertSame(student, sessionUser());
+  }
+
+  @Test
+  void test_promoted_user_is_refreshed() {
+    request.setAttribute(CurrentUserServiceImpl.SESSION_USER, student, RequestAttributes.SCOPE_SESSION);
+    when(repository.findAdminByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(true));
+    when(provisioning.findOrCreate(any())).thenReturn(admin);
+
+    assertTrue(service.getUser().getAdmin());
+    assertSame(admin, sessionUser());
+  }
+
+  @Test
+  void test_user_listed_in_admin_emails_is_made_admin() {
+    listAdmin("cgaucho@ucsb.edu");
+    User row = User.builder().id(7L).email("cgaucho@ucsb.edu").admin(false).build();
+    request.setAttribute(CurrentUserServiceImpl.SESSION_USER, student, RequestAttributes.SCOPE_SESSION);
+    when(repository.findAdminByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(false));
+    when(provisioning.findOrCreate(any())).thenReturn(row);
+
+    assertTrue(service.getUser().getAdmin());
+    verify(repository, times(1)).save(row);
+  }
+
+  @Test
+  void test_listed_admin_is_answered_from_the_session() {
+    listAdmin("cgaucho@ucsb.edu");
+    request.setAttribute(CurrentUserServiceImpl.SESSION_USER, admin, RequestAttributes.SCOPE_SESSION);
+    when(repository.findAdminByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(true));
+
+    assertSame(admin, service.getUser());
+    verify(provisioning, never()).findOrCreate(any());
+  }
+
+  @Test
+  void test_deleted_row_is_provisioned_again() {
+    request.setAttribute(CurrentUserServiceImpl.SESSION_USER, student, RequestAttributes.SCOPE_SESSION);
+    User recreated = User.builder().id(9L).email("cgaucho@ucsb.edu").build();
+    when(repository.findAdminByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(provisioning.findOrCreate(any())).thenReturn(recreated);
+
+    assertSame(recreated, service.getUser());
+  }
+
+  @Test
+  void test_without_a_request_nothing_is_cached() {
+    RequestContextHolder.resetRequestAttributes();
+    when(provisioning.findOrCreate(any())).thenReturn(student);
+
+    service.getUser();
+    service.getUser();
+
+    verify(provisioning, times(2)).findOrCreate(any());
+  }
+
+  @Test
+  void test_anonymous_user_is_null() {
+    SecurityContextHolder.clearContext();
+
+    assertNull(service.getUser());
+  }
+
+  @Test
+  void test_session_user_can_be_serialized() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(admin);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertEquals(admin, in.readObject());
+    }
+  }
+}
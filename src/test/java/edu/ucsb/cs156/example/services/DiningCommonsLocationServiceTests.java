@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+class DiningCommonsLocationServiceTests {
+
+  private static final double LAT = 34.41;
+  private static final double LON = -119.85;
+
+  private UCSBDiningCommonsRepository repository;
+  private DiningCommonsLocationService service;
+
+  private UCSBDiningCommons carrillo = commons("carrillo", 34.409953, -119.85277);
+  private UCSBDiningCommons dlg = commons("de-la-guerra", 34.409811, -119.845026);
+  private UCSBDiningCommons portola = commons("portola", 34.417723, -119.867427);
+  private UCSBDiningCommons noLatitude = commons("no-latitude", null, -119.85);
+  private UCSBDiningCommons noLongitude = commons("no-longitude", 34.41, null);
+
+  private static UCSBDiningCommons commons(String code, Double latitude, Double longitude) {
+    return UCSBDiningCommons.builder()
+        .code(code)
+        .name(code)
+        .latitude(latitude)
+        .longitude(longitude)
+        .build();
+  }
+
+  private static List<String> codes(List<NearbyCommons> nearby) {
+    return nearby.stream().map(n -> n.getCommons().getCode()).collect(Collectors.toList());
+  }
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UCSBDiningCommonsRepository.class);
+    service = new DiningCommonsLocationService();
+    ReflectionTestUtils.setField(service, "ucsbDiningCommonsRepository", repository);
+  }
+
+  @Test
+  void test_nearest_returns_k_closest_in_distance_order_and_reads_the_table_once() {
+    when(repository.findAll()).thenReturn(List.of(portola, noLatitude, carrillo, noLongitude, dlg));
+
+    List<NearbyCommons> two = service.nearest(LAT, LON, 2);
+    List<NearbyCommons> all = service.nearest(LAT, LON, 10);
+
+    assertEquals(List.of("carrillo", "de-la-guerra"), codes(two));
+    assertEquals(List.of("carrillo", "de-la-guerra", "portola"), codes(all));
+    assertTrue(two.get(0).getDistanceMeters() < two.get(1).getDistanceMeters());
+    verify(repository, times(1)).findAll();
+  }
+
+  @Test
+  void test_nearest_with_k_below_one_is_empty() {
+    when(repository.findAll()).thenReturn(List.of(carrillo));
+
+    assertEquals(List.of(), service.nearest(LAT, LON, 0));
+  }
+
+  @Test
+  void test_nearest_with_huge_k_returns_every_commons() {
+    when(repository.findAll()).thenReturn(List.of(portola, carrillo, dlg));
+
+    assertEquals(List.of("carrillo", "de-la-guerra", "portola"), codes(service.nearest(LAT, LON, 500_000_000)));
+    assertEquals(List.of("carrillo", "de-la-guerra", "portola"), codes(service.nearest(LAT, LON, Integer.MAX_VALUE)));
+  }
+
+  @Test
+  void test_nearest_with_no_commons_is_empty() {
+    when(repository.findAll()).thenReturn(List.of());
+
+    assertEquals(List.of(), service.nearest(LAT, LON, 3));
+  }
+
+  @Test
+  void test_writes_before_the_first_lookup_are_left_to_the_initial_load() {
+    when(repository.findAll()).thenReturn(List.of(carrillo, dlg));
+
+    service.saved(portola);
+    service.deleted(List.of("carrillo"));
+
+    assertEquals(List.of("carrillo", "de-la-guerra"), codes(service.nearest(LAT, LON, 10)));
+  }
+
+  @Test
+  void test_writes_after_the_first_lookup_update_the_index() {
+    when(repository.findAll()).thenReturn(List.of(carrillo, dlg));
+    service.nearest(LAT, LON, 10);
+
+    UCSBDiningCommons movedCarrillo = commons("carrillo", 34.5, -119.85);
+    service.saved(portola);
+    service.saved(movedCarrillo);
+    service.deleted(List.of("de-la-guerra"));
+
+    List<NearbyCommons> nearby = service.nearest(LAT, LON, 10);
+    assertEquals(List.of("portola", "carrillo"), codes(nearby));
+    assertEquals(movedCarrillo, nearby.get(1).getCommons());
+    verify(repository, times(1)).findAll();
+  }
+
+  @Test
+  void test_distanceMeters_one_degree_of_latitude() {
+    double distance = DiningCommonsLocationService.distanceMeters(34.0, -119.0, 35.0, -119.0);
+    assertEquals(111195.0, distance, 1.0);
+  }
+
+}
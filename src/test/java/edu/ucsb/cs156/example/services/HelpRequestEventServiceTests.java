@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+
+class HelpRequestEventServiceTests {
+
+  private HelpRequestEventService service;
+  private List<Runnable> tasks;
+  private SseEmitter emitter;
+
+  private HelpRequest helpRequest = HelpRequest.builder().id(7L).teamId("s24-4pm-3").build();
+
+  private void runTasks() {
+    List<Runnable> toRun = new ArrayList<>(tasks);
+    tasks.clear();
+    toRun.forEach(Runnable::run);
+  }
+
+  private static List<Object> sentData(SseEmitter emitter) throws IOException {
+    ArgumentCaptor<SseEmitter.SseEventBuilder> events = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+    verify(emitter, times(1)).send(events.capture());
+    return events.getValue().build().stream()
+        .map(ResponseBodyEmitter.DataWithMediaType::getData)
+        .collect(Collectors.toList());
+  }
+
+  @BeforeEach
+  void setup() {
+    tasks = new ArrayList<>();
+    emitter = mock(SseEmitter.class);
+    service = new HelpRequestEventService();
+    service.executor = tasks::add;
+    service.emitters = () -> emitter;
+  }
+
+  @Test
+  void test_subscribe_opens_an_emitter_with_the_stream_timeout() {
+    HelpRequestEventService defaults = new HelpRequestEventService();
+
+    SseEmitter opened = defaults.subscribe();
+
+    assertEquals(HelpRequestEventService.TIMEOUT_MILLIS, opened.getTimeout());
+    assertEquals(1, defaults.subscriberCount());
+  }
+
+  @Test
+  void test_publish_sends_named_event_to_every_subscriber() throws IOException {
+    SseEmitter other = mock(SseEmitter.class);
+    service.subscribe();
+    service.emitters = () -> other;
+    service.subscribe();
+
+    service.publish(HelpRequestEvent.CREATED, helpRequest);
+    runTasks();
+
+    List<Object> sent = sentData(emitter);
+    assertTrue(sent.contains("event:created\ndata:"), sent.toString());
+    assertTrue(sent.contains(helpRequest), sent.toString());
+    assertEquals(sent, sentData(other));
+  }
+
+  @Test
+  void test_events_published_while_draining_are_sent_by_the_same_task() throws IOException {
+    service.subscribe();
+
+    service.publish(HelpRequestEvent.CREATED, helpRequest);
+    service.publish(HelpRequestEvent.DELETED, List.of(7L));
+    assertEquals(1, tasks.size());
+    runTasks();
+
+    verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+  }
+
+  @Test
+  void test_subscriber_that_falls_behind_is_closed() throws IOException {
+    service.subscribe();
+
+    for (int i = 0; i <= HelpRequestEventService.BUFFER_SIZE; i++) {
+      service.publish(HelpRequestEvent.UPDATED, helpRequest);
+    }
+    runTasks();
+
+    verify(emitter, times(1)).complete();
+    verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    assertEquals(0, service.subscriberCount());
+  }
+
+  @Test
+  void test_subscriber_is_closed_when_send_fails() throws IOException {
+    doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+    service.subscribe();
+
+    service.publish(HelpRequestEvent.CREATED, helpRequest);
+    runTasks();
+
+    verify(emitter, times(1)).complete();
+    assertEquals(0, service.subscriberCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_completion_timeout_and_error_unsubscribe() {
+    ArgumentCaptor<Runnable> completions = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Runnable> timeouts = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Consumer<Throwable>> errors = ArgumentCaptor.forClass(Consumer.class);
+
+    service.subscribe();
+    service.subscribe();
+    service.subscribe();
+    verify(emitter, times(3)).onCompletion(completions.capture());
+    verify(emitter, times(3)).onTimeout(timeouts.capture());
+    verify(emitter, times(3)).onError(errors.capture());
+    assertEquals(3, service.subscriberCount());
+
+    completions.getAllValues().get(0).run();
+    timeouts.getAllValues().get(1).run();
+    errors.getAllValues().get(2).accept(new IOException("reset"));
+
+    assertEquals(0, service.subscriberCount());
+  }
+
+  @Test
+  void test_default_executor_delivers_events() throws IOException {
+    HelpRequestEventService defaults = new HelpRequestEventService();
+    defaults.emitters = () -> emitter;
+    defaults.subscribe();
+
+    defaults.publish(HelpRequestEvent.CREATED, helpRequest);
+
+    verify(emitter, timeout(5000)).send(any(SseEmitter.SseEventBuilder.class));
+  }
+
+}
@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+
+// Runs the Liquibase changelog against an in-memory H2 database so the rollup
+// table and its primary key are the real ones. Test-managed transactions are
+// turned off because each thread has to commit on its own, as requests do.
+
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:menuitemrating;DB_CLOSE_DELAY=-1",
+    "spring.liquibase.url=jdbc:h2:mem:menuitemrating;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(MenuItemRatingService.class)
+class MenuItemRatingConcurrencyTests {
+
+  static final int WRITERS = 16;
+
+  @Autowired
+  MenuItemRatingService menuItemRatings;
+
+  @Autowired
+  MenuItemRatingRepository menuItemRatingRepository;
+
+  private static MenuItemReview review(long itemId, int stars) {
+    return MenuItemReview.builder().itemID(itemId).stars(stars).build();
+  }
+
+  // starts every task at once and waits for all of them; any failure fails the test
+  private static void runTogether(List<Callable<Void>> tasks) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Void>> running = new ArrayList<>();
+      for (Callable<Void> task : tasks) {
+        running.add(pool.submit(() -> {
+          start.await();
+          return task.call();
+        }));
+      }
+      start.countDown();
+      for (Future<Void> future : running) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void test_concurrent_first_reviews_of_an_item_all_count() throws Exception {
+    long itemId = 9001L;
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < WRITERS; i++) {
+      int stars = 1 + i % 5;
+      tasks.add(() -> {
+        menuItemRatings.reviewAdded(review(itemId, stars));
+        return null;
+      });
+    }
+
+    runTogether(tasks);
+
+    MenuItemRating rating = menuItemRatingRepository.findById(itemId).get();
+    assertEquals(WRITERS, rating.getReviewCount());
+    assertEquals(4, rating.getOneStar());
+    assertEquals(3, rating.getFiveStars());
+    assertEquals(4 * 1 + 3 * 2 + 3 * 3 + 3 * 4 + 3 * 5, rating.getStarsTotal());
+  }
+
+  @Test
+  void test_reviews_moved_both_ways_between_two_items_do_not_deadlock() throws Exception {
+    long first = 9101L;
+    long second = 9102L;
+    menuItemRatings.reviewAdded(review(first, 5));
+    menuItemRatings.reviewAdded(review(second, 5));
+
+    // half the writers move a review from the first item to the second and
+    // half move one back, so each pair touches both rows in opposite orders
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < WRITERS; i++) {
+      long from = (i % 2 == 0) ? first : second;
+      long to = (i % 2 == 0) ? second : first;
+      tasks.add(() -> {
+        menuItemRatings.reviewChanged(review(from, 5), review(to, 5));
+        return null;
+      });
+    }
+
+    runTogether(tasks);
+
+    assertEquals(1, menuItemRatingRepository.findById(first).get().getReviewCount());
+    assertEquals(1, menuItemRatingRepository.findById(second).get().getReviewCount());
+  }
+}
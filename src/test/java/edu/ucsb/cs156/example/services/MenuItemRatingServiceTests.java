@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+
+class MenuItemRatingServiceTests {
+
+  private MenuItemRatingRepository repository;
+  private MenuItemRatingService service;
+
+  private static MenuItemReview review(long itemId, int stars) {
+    return MenuItemReview.builder().itemID(itemId).stars(stars).build();
+  }
+
+  @BeforeEach
+  void setup() {
+    repository = mock(MenuItemRatingRepository.class);
+    service = new MenuItemRatingService();
+    ReflectionTestUtils.setField(service, "menuItemRatingRepository", repository);
+  }
+
+  @Test
+  void test_statsFor_returns_stored_rollup() {
+    MenuItemRating stored = MenuItemRating.builder().itemId(5L).reviewCount(2).starsTotal(7).build();
+    when(repository.findById(5L)).thenReturn(Optional.of(stored));
+
+    MenuItemRating stats = service.statsFor(5L);
+
+    assertEquals(stored, stats);
+    assertEquals(3.5, stats.getAverageStars());
+  }
+
+  @Test
+  void test_statsFor_item_without_reviews_is_all_zero() {
+    when(repository.findById(6L)).thenReturn(Optional.empty());
+
+    MenuItemRating stats = service.statsFor(6L);
+
+    assertEquals(MenuItemRating.builder().itemId(6L).build(), stats);
+    assertEquals(0.0, stats.getAverageStars());
+  }
+
+  @Test
+  void test_reviewAdded_upserts_the_item_row() {
+    MenuItemRating expected = MenuItemRating.builder().itemId(5L).reviewCount(1).starsTotal(4).fourStars(1).build();
+
+    service.reviewAdded(review(5L, 4));
+
+    verify(repository, times(1)).upsert(expected);
+  }
+
+  @Test
+  void test_reviewChanged_on_same_item_is_one_update() {
+    MenuItemRating expected = MenuItemRating.builder().itemId(5L).reviewCount(0).starsTotal(1).twoStars(-1).threeStars(1).build();
+    service.reviewChanged(review(5L, 2), review(5L, 3));
+
+    verify(repository, times(1)).upsert(expected);
+    verify(repository, times(1)).upsert(any());
+  }
+
+  @Test
+  void test_reviewChanged_to_another_item_moves_the_stars() {
+    MenuItemRating fromItem = MenuItemRating.builder().itemId(5L).reviewCount(-1).starsTotal(-5).fiveStars(-1).build();
+    MenuItemRating toItem = MenuItemRating.builder().itemId(6L).reviewCount(1).starsTotal(5).fiveStars(1).build();
+    service.reviewChanged(review(5L, 5), review(6L, 5));
+
+    verify(repository, times(1)).upsert(fromItem);
+    verify(repository, times(1)).upsert(toItem);
+  }
+
+  @Test
+  void test_rows_are_changed_in_item_order() {
+    MenuItemRating item5 = MenuItemRating.builder().itemId(5L).reviewCount(1).starsTotal(5).fiveStars(1).build();
+    MenuItemRating item6 = MenuItemRating.builder().itemId(6L).reviewCount(-1).starsTotal(-5).fiveStars(-1).build();
+
+    service.reviewChanged(review(6L, 5), review(5L, 5));
+
+    InOrder inOrder = inOrder(repository);
+    inOrder.verify(repository).upsert(item5);
+    inOrder.verify(repository).upsert(item6);
+  }
+
+  @Test
+  void test_reviewsRemoved_groups_by_item() {
+    MenuItemRating item5 = MenuItemRating.builder().itemId(5L).reviewCount(-3).starsTotal(-8).threeStars(-1).fiveStars(-1).build();
+    MenuItemRating item6 = MenuItemRating.builder().itemId(6L).reviewCount(-1).starsTotal(-4).fourStars(-1).build();
+    // 0 stars is outside the histogram's range, so only the count changes for it
+    service.reviewsRemoved(List.of(review(5L, 3), review(6L, 4), review(5L, 5), review(5L, 0)));
+
+    verify(repository, times(1)).upsert(item5);
+    verify(repository, times(1)).upsert(item6);
+  }
+
+}
@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+// Runs the Liquibase changelog against an in-memory H2 database so the unique
+// constraint on USERS.EMAIL is the real one. Test-managed transactions are
+// turned off because each thread has to commit on its own, as requests do.
+
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:userprovisioning;DB_CLOSE_DELAY=-1",
+    "spring.liquibase.url=jdbc:h2:mem:userprovisioning;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(UserProvisioningService.class)
+class UserProvisioningConcurrencyTests {
+
+  static final int LOGINS = 16;
+
+  @Autowired
+  UserProvisioningService userProvisioning;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Test
+  void test_concurrent_first_logins_share_one_row() throws Exception {
+    String email = "newstudent@ucsb.edu";
+    ExecutorService pool = Executors.newFixedThreadPool(LOGINS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<User>> logins = new ArrayList<>();
+      for (int i = 0; i < LOGINS; i++) {
+        logins.add(pool.submit(() -> {
+          start.await();
+          return userProvisioning.findOrCreate(User.builder().email(email).fullName("New Student").build());
+        }));
+      }
+      start.countDown();
+
+      Set<Long> ids = new HashSet<>();
+      for (Future<User> login : logins) {
+        ids.add(login.get(30, TimeUnit.SECONDS).getId());
+      }
+
+      long rows = StreamSupport.stream(userRepository.findAll().spliterator(), false)
+          .filter(user -> email.equals(user.getEmail()))
+          .count();
+      assertEquals(1, rows);
+      assertEquals(Set.of(userRepository.findByEmail(email).get().getId()), ids);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class UserProvisioningServiceTests {
+
+  private UserRepository repository;
+  private UserProvisioningService service;
+
+  private final User newUser = User.builder().email("cgaucho@ucsb.edu").fullName("Chris Gaucho").build();
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UserRepository.class);
+    service = new UserProvisioningService();
+    ReflectionTestUtils.setField(service, "userRepository", repository);
+  }
+
+  @Test
+  void test_findOrCreate_returns_existing_row() {
+    User existing = User.builder().id(7L).email("cgaucho@ucsb.edu").admin(true).build();
+    when(repository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+
+    assertSame(existing, service.findOrCreate(newUser));
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void test_findOrCreate_inserts_first_login() {
+    User saved = User.builder().id(8L).email("cgaucho@ucsb.edu").fullName("Chris Gaucho").build();
+    when(repository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(repository.save(newUser)).thenReturn(saved);
+
+    assertSame(saved, service.findOrCreate(newUser));
+    verify(repository, times(1)).save(newUser);
+  }
+
+  @Test
+  void test_findOrCreate_returns_row_inserted_by_concurrent_login() {
+    User winner = User.builder().id(9L).email("cgaucho@ucsb.edu").build();
+    when(repository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty(), Optional.of(winner));
+    when(repository.save(newUser)).thenThrow(new DataIntegrityViolationException("UK_USERS_EMAIL"));
+
+    assertSame(winner, service.findOrCreate(newUser));
+    verify(repository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void test_findOrCreate_rethrows_when_no_row_explains_the_failure() {
+    DataIntegrityViolationException failure = new DataIntegrityViolationException("EMAIL_VERIFIED is null");
+    when(repository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(repository.save(newUser)).thenThrow(failure);
+
+    DataIntegrityViolationException thrown = assertThrows(DataIntegrityViolationException.class, () -> service.findOrCreate(newUser));
+    assertEquals(failure, thrown);
+  }
+
+}